@@ -1,6 +1,8 @@
 package org.lucee.extension.search;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Reads context highlighting attributes from core's AddionalAttrs thread-local
@@ -67,4 +69,58 @@ public final class AddionalAttrsHelper {
 			return defaultValue;
 		}
 	}
+
+	/**
+	 * the cursor, facets and sort attributes are only passed on by a core whose AddionalAttrs has
+	 * getCursor(), getFacets() and getSort() (see README), with older cores these features are only
+	 * available to callers setting them on SearchDataImpl
+	 *
+	 * @return true if the core passes on cursor, facets and sort of cfsearch
+	 */
+	public static boolean hasSearchAttributes() {
+		try {
+			Map<String, Method> methods = METHODS.get(getAddionalAttrs().getClass());
+			return methods.containsKey("getCursor") && methods.containsKey("getFacets") && methods.containsKey("getSort");
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	public static String getCursor( String defaultValue ) {
+		return getString("getCursor", defaultValue);
+	}
+
+	public static String getFacets( String defaultValue ) {
+		return getString("getFacets", defaultValue);
+	}
+
+	public static String getSort( String defaultValue ) {
+		return getString("getSort", defaultValue);
+	}
+
+	// the methods are looked up once per class, cores without them do not throw with every search
+	private static final ClassValue<Map<String, Method>> METHODS = new ClassValue<Map<String, Method>>() {
+		@Override
+		protected Map<String, Method> computeValue(Class<?> type) {
+			Map<String, Method> methods = new HashMap<String, Method>();
+			for (Method m: type.getMethods()) {
+				if (m.getParameterCount() == 0 && m.getReturnType() == String.class)
+					methods.put(m.getName(), m);
+			}
+			return methods;
+		}
+	};
+
+	private static String getString( String name, String defaultValue ) {
+		try {
+			Object aa = getAddionalAttrs();
+			Method m = METHODS.get(aa.getClass()).get(name);
+			if (m == null)
+				return defaultValue;
+			String val = (String) m.invoke(aa);
+			return (val != null && !val.isEmpty()) ? val : defaultValue;
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
 }
@@ -2,22 +2,26 @@ package org.lucee.extension.search;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.lucene.index.IndexReader;
 import org.lucee.extension.search.lucene.util.CommonUtil;
 
 import lucee.commons.io.log.Log;
 import lucee.commons.io.res.Resource;
-import lucee.commons.lock.KeyLock;
-import lucee.commons.lock.Lock;
 import lucee.loader.engine.CFMLEngine;
 import lucee.loader.engine.CFMLEngineFactory;
 import lucee.loader.util.Util;
@@ -57,12 +61,23 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 	private SearchEngineSupport searchEngine;
 	// TODO change visibility to private
 	protected Map<String, SearchIndex> indexes = new ConcurrentHashMap<String, SearchIndex>();
+	// definitions of indexes currently indexed, see getIndexDefinition
+	private final Map<String, SearchIndex> pendingIndexes = new ConcurrentHashMap<String, SearchIndex>();
 
 	private DateTime created;
 
 	private Log log;
-	// private static LockManager manager=Lock Manager Impl.getInstance();
-	private final KeyLock<String> lock;
+	// searches and index updates share the read lock, Lucene itself keeps readers point-in-time consistent;
+	// only structural operations (delete collection, purge, delete index) take the write lock
+	private final ReentrantReadWriteLock lock;
+	// locks by collection directory, so instances of the same collection (for example after a reload of
+	// the configuration) exclude each other; held weakly, a lock goes away with the last instance using
+	// it (the collection was deleted or moved to another directory)
+	private static final Map<String, WeakReference<ReentrantReadWriteLock>> locks =
+			new HashMap<String, WeakReference<ReentrantReadWriteLock>>();
+	private final LongAdder lockWaits = new LongAdder();
+	private final LongAdder lockWaitNanos = new LongAdder();
+	private final AtomicLong lockWaitMaxNanos = new AtomicLong();
 
 	private final CFMLEngine engine;
 
@@ -82,7 +97,6 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 	public SearchCollectionSupport(SearchEngineSupport searchEngine, String name, Resource path, String language,
 			DateTime lastUpdate, DateTime created) {
 		engine = CFMLEngineFactory.getInstance();
-		lock = engine.getCreationUtil().createKeyLock();
 
 		this.searchEngine = searchEngine;
 		this.name = name;
@@ -90,13 +104,14 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 		this.language = SearchUtil.translateLanguage(language);
 		this.lastUpdate = lastUpdate;
 		this.created = created;
+		this.lock = getLock(getId());
 
 		log = searchEngine.getConfig().getLog("search");
 	}
 
 	@Override
 	public final void create() throws SearchException {
-		Lock l = lock();
+		Lock l = readLock();
 		try {
 			_create();
 		} finally {
@@ -113,7 +128,7 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	@Override
 	public final void optimize() throws SearchException {
-		Lock l = lock();
+		Lock l = readLock();
 		try {
 			_optimize();
 			changeLastUpdate();
@@ -131,7 +146,7 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	@Override
 	public final void map(Resource path) throws SearchException {
-		Lock l = lock();
+		Lock l = readLock();
 		try {
 			_map(path);
 			changeLastUpdate();
@@ -150,7 +165,7 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	@Override
 	public final void repair() throws SearchException {
-		Lock l = lock();
+		Lock l = readLock();
 		try {
 			_repair();
 			changeLastUpdate();
@@ -172,11 +187,14 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 			String[] categories, long timeout, String custom1, String custom2, String custom3, String custom4)
 			throws PageException, MalformedURLException, SearchException {
 		language = SearchUtil.translateLanguage(language);
-		Lock l = lock();
+		Lock l = readLock();
+		String id = null;
 		try {
 			SearchIndex si = new SearchIndexImpl(this, title, key, type, query, extensions, language, urlpath,
 					categoryTree, categories, custom1, custom2, custom3, custom4);
-			String id = si.getId();
+			id = si.getId();
+			// the definition only gets registered after indexing, until then it is pending
+			pendingIndexes.put(id, si);
 			IndexResult ir = IndexResultImpl.EMPTY;
 			if (type == SearchIndex.TYPE_FILE) {
 				Resource file = engine.getResourceUtil().toResourceNotExisting(pc, key);
@@ -273,10 +291,23 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 			createIndex(si);
 			return ir;
 		} finally {
+			if (id != null)
+				pendingIndexes.remove(id);
 			unlock(l);
 		}
 	}
 
+	/**
+	 * returns the definition of an index, while it is indexed the one it is indexed with
+	 * 
+	 * @param id index id
+	 * @return definition or null if the index is unknown
+	 */
+	protected final SearchIndex getIndexDefinition(String id) {
+		SearchIndex si = pendingIndexes.get(id);
+		return si != null ? si : indexes.get(id);
+	}
+
 	private QueryColumn getColumnEL(Query query, String column) {
 		if (Util.isEmpty(column))
 			return null;
@@ -474,7 +505,7 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	@Override
 	public final IndexResult purge() throws SearchException {
-		Lock l = lock();
+		Lock l = writeLock();
 		try {
 			indexes.clear();
 			IndexResult ir = _purge();
@@ -495,7 +526,7 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	@Override
 	public final IndexResult delete() throws SearchException {
-		Lock l = lock();
+		Lock l = writeLock();
 		try {
 			IndexResult ir = _delete();
 			searchEngine.removeCollection(this);
@@ -542,10 +573,16 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 				// from the query variable name used at index time, which we don't
 				// know here, so we iterate all custom-type indexes
 				IndexResult ir = IndexResultImpl.EMPTY;
-				for (SearchIndex si : indexes.values()) {
-					if (si.getType() == SearchIndex.TYPE_CUSTOM) {
-						ir = deleteCustom(si.getId(), keyColumn);
+				// an update of the indexes like index(), so it shares the read lock with them
+				Lock l = readLock();
+				try {
+					for (SearchIndex si : indexes.values()) {
+						if (si.getType() == SearchIndex.TYPE_CUSTOM) {
+							ir = deleteCustom(si.getId(), keyColumn);
+						}
 					}
+				} finally {
+					unlock(l);
 				}
 				return ir;
 			} catch (PageException pe) {
@@ -558,19 +595,24 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 
 	public final IndexResult deleteIndexNotCustom(PageContext pc, String key, short type, String queryName)
 			throws SearchException {
-		Iterator<String> it = indexes.keySet().iterator();
-		while (it.hasNext()) {
-			String id = it.next();
-			if (id.equals(SearchIndexImpl.toId(type, key, queryName))) {
-				SearchIndex index = indexes.get(id);
-
-				IndexResult ir = _deleteIndex(index.getId());
-				searchEngine.removeIndexStruct(searchEngine.getCollectionStruct(name), index.getId());
-				changeLastUpdate();
-				return ir;
+		Lock l = writeLock();
+		try {
+			Iterator<String> it = indexes.keySet().iterator();
+			while (it.hasNext()) {
+				String id = it.next();
+				if (id.equals(SearchIndexImpl.toId(type, key, queryName))) {
+					SearchIndex index = indexes.get(id);
+
+					IndexResult ir = _deleteIndex(index.getId());
+					searchEngine.removeIndexStruct(searchEngine.getCollectionStruct(name), index.getId());
+					changeLastUpdate();
+					return ir;
+				}
 			}
+			return new IndexResultImpl(0, 0, 0);
+		} finally {
+			unlock(l);
 		}
-		return new IndexResultImpl(0, 0, 0);
 	}
 
 	/**
@@ -630,150 +672,186 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 	public abstract SearchResulItem[] _search(SearchData data, String criteria, String language, short type,
 			int startrow, int maxrow, String categoryTree, String[] category) throws SearchException;
 
+	/**
+	 * search that only returns the rows of the requested page, collections that do not support this
+	 * return null, then the result of _search is trimmed to startrow and maxrow
+	 * 
+	 * @param startrow first row of the page (1 based)
+	 * @param maxrow max number of rows of the page, -1 for all
+	 * @return page or null
+	 * @throws SearchException
+	 */
+	protected SearchResultPage _searchPage(SearchData data, String criteria, String language, short type,
+			int startrow, int maxrow, String categoryTree, String[] category) throws SearchException {
+		return null;
+	}
+
 	@Override
 	public final int search(SearchData data, Query qry, String criteria, String language, short type, int startrow,
 			int maxrow, String categoryTree, String[] categories) throws SearchException, PageException {
 		int len = qry.getRecordcount();
 		SearchResulItem[] records;
 		boolean hasRowHandling = false;
+		SearchResultPage page = null;
 
-		Lock l = lock();
+		Lock l = readLock();
 		try {
-			records = _search(data, criteria, language, type, startrow, maxrow, categoryTree, categories);
-		} finally {
-			unlock(l);
-		}
+			// previous collections may already have filled some of the rows
+			page = _searchPage(data, criteria, language, type, startrow,
+					maxrow > -1 ? Math.max(0, maxrow - len) : -1, categoryTree, categories);
+			if (page != null) {
+				hasRowHandling = true;
+				records = page.getItems();
+				if (data instanceof SearchDataImpl) {
+					((SearchDataImpl) data).setNextCursor(page.getNextCursor());
+					((SearchDataImpl) data).addFacetCounts(page.getFacetCounts());
+				}
+				// the rows skipped here are no longer skipped by the next collection
+				startrow = page.getTotalHits() >= startrow ? 1 : startrow - page.getTotalHits();
+			}
+			else
+				records = _search(data, criteria, language, type, startrow, maxrow, categoryTree, categories);
 
-		// Startrow
-		if (!hasRowHandling && startrow > 1) {
+			// the rows of a page are loaded when they are written, so the lock is held until the page is
+			// released, a purge or delete cannot close the index they are read from
+			// Startrow
+			if (!hasRowHandling && startrow > 1) {
 
-			if (startrow > records.length) {
-				return startrow - records.length;
-			}
-			int start = startrow - 1;
+				if (startrow > records.length) {
+					return startrow - records.length;
+				}
+				int start = startrow - 1;
 
-			SearchResulItem[] tmpRecords = new SearchResulItem[records.length - start];
-			for (int i = start; i < records.length; i++) {
-				tmpRecords[i - start] = records[i];
+				SearchResulItem[] tmpRecords = new SearchResulItem[records.length - start];
+				for (int i = start; i < records.length; i++) {
+					tmpRecords[i - start] = records[i];
+				}
+				records = tmpRecords;
+				startrow = 1;
 			}
-			records = tmpRecords;
-			startrow = 1;
-		}
 
-		if (records != null && records.length > 0) {
-			int to = (!hasRowHandling && maxrow > -1 && len + records.length > maxrow) ? maxrow - len : records.length;
-			qry.addRow(to);
-
-			Creation creator = engine.getCreationUtil();
-
-			Key _title = creator.createKey("title");
-			Key _custom1 = creator.createKey("custom1");
-			Key _custom2 = creator.createKey("custom2");
-			Key _custom3 = creator.createKey("custom3");
-			Key _custom4 = creator.createKey("custom4");
-			Key _categoryTree = creator.createKey("categoryTree");
-			Key _category = creator.createKey("category");
-			Key _type = creator.createKey("type");
-			Key _author = creator.createKey("author");
-			Key _size = creator.createKey("size");
-			Key _summary = creator.createKey("summary");
-			Key _context = creator.createKey("context");
-			Key _score = creator.createKey("score");
-			Key _key = creator.createKey("key");
-			Key _url = creator.createKey("url");
-			Key _collection = creator.createKey("collection");
-			Key _rank = creator.createKey("rank");
-
-			String title;
-			String custom1;
-			String custom2;
-			String custom3;
-			String custom4;
-			String url;
-			SearchResulItem record;
-			SearchIndex si;
-			for (int y = 0; y < to; y++) {
-
-				int row = len + y + 1;
-				record = records[y];
-				si = indexes.get(record.getId());
-
-				title = record.getTitle();
-				custom1 = record.getCustom1();
-				custom2 = record.getCustom2();
-				custom3 = record.getCustom3();
-				custom4 = record.getCustom4();
-				url = record.getUrl();
-
-				qry.setAt(_title, row, title);
-				qry.setAt(_custom1, row, custom1);
-				qry.setAt(_custom2, row, custom2);
-				qry.setAt(_custom3, row, custom3);
-				qry.setAt(_custom4, row, custom4);
-				qry.setAt(_categoryTree, row, record.getCategoryTree());
-				qry.setAt(_category, row, record.getCategory());
-				qry.setAt(_type, row, record.getMimeType());
-				qry.setAt(_author, row, record.getAuthor());
-				qry.setAt(_size, row, record.getSize());
-
-				qry.setAt(_summary, row, record.getSummary());
-				qry.setAt(_context, row, ((SearchResulItemImpl) record).getContext());
-				// qry.setAt("context", row, record.getContextSummary());
-				qry.setAt(_score, row, Double.valueOf(record.getScore()));
-				qry.setAt(_key, row, record.getKey());
-				qry.setAt(_url, row, url);
-				qry.setAt(_collection, row, getName());
-				qry.setAt(_rank, row, Double.valueOf(row));
-				String rootPath, file;
-				String urlPath;
-				if (si != null) {
-					switch (si.getType()) {
-					case SearchIndex.TYPE_PATH:
-						rootPath = si.getKey();
-						rootPath = rootPath.replace(FILE_ANTI_SEPERATOR, FILE_SEPERATOR);
-						file = record.getKey();
-						file = file.replace(FILE_ANTI_SEPERATOR, FILE_SEPERATOR);
-						qry.setAt(_url, row, toURL(si.getUrlpath(),
-								engine.getStringUtil().replace(file, rootPath, "", true, false)));
-
-						break;
-					case SearchIndex.TYPE_URL:
-						rootPath = si.getKey();
-						urlPath = si.getUrlpath();
-						try {
-							rootPath = getDirectory(si.getKey());
-						} catch (MalformedURLException e) {
+			if (records != null && records.length > 0) {
+				int to = (!hasRowHandling && maxrow > -1 && len + records.length > maxrow) ? maxrow - len : records.length;
+				qry.addRow(to);
+
+				Creation creator = engine.getCreationUtil();
+
+				Key _title = creator.createKey("title");
+				Key _custom1 = creator.createKey("custom1");
+				Key _custom2 = creator.createKey("custom2");
+				Key _custom3 = creator.createKey("custom3");
+				Key _custom4 = creator.createKey("custom4");
+				Key _categoryTree = creator.createKey("categoryTree");
+				Key _category = creator.createKey("category");
+				Key _type = creator.createKey("type");
+				Key _author = creator.createKey("author");
+				Key _size = creator.createKey("size");
+				Key _summary = creator.createKey("summary");
+				Key _context = creator.createKey("context");
+				Key _score = creator.createKey("score");
+				Key _key = creator.createKey("key");
+				Key _url = creator.createKey("url");
+				Key _collection = creator.createKey("collection");
+				Key _rank = creator.createKey("rank");
+
+				String title;
+				String custom1;
+				String custom2;
+				String custom3;
+				String custom4;
+				String url;
+				SearchResulItem record;
+				SearchIndex si;
+				for (int y = 0; y < to; y++) {
+
+					int row = len + y + 1;
+					record = records[y];
+					si = indexes.get(record.getId());
+
+					title = record.getTitle();
+					custom1 = record.getCustom1();
+					custom2 = record.getCustom2();
+					custom3 = record.getCustom3();
+					custom4 = record.getCustom4();
+					url = record.getUrl();
+
+					qry.setAt(_title, row, title);
+					qry.setAt(_custom1, row, custom1);
+					qry.setAt(_custom2, row, custom2);
+					qry.setAt(_custom3, row, custom3);
+					qry.setAt(_custom4, row, custom4);
+					qry.setAt(_categoryTree, row, record.getCategoryTree());
+					qry.setAt(_category, row, record.getCategory());
+					qry.setAt(_type, row, record.getMimeType());
+					qry.setAt(_author, row, record.getAuthor());
+					qry.setAt(_size, row, record.getSize());
+
+					qry.setAt(_summary, row, record.getSummary());
+					qry.setAt(_context, row, ((SearchResulItemImpl) record).getContext());
+					// qry.setAt("context", row, record.getContextSummary());
+					qry.setAt(_score, row, Double.valueOf(record.getScore()));
+					qry.setAt(_key, row, record.getKey());
+					qry.setAt(_url, row, url);
+					qry.setAt(_collection, row, getName());
+					qry.setAt(_rank, row, Double.valueOf(row));
+					String rootPath, file;
+					String urlPath;
+					if (si != null) {
+						switch (si.getType()) {
+						case SearchIndex.TYPE_PATH:
+							rootPath = si.getKey();
+							rootPath = rootPath.replace(FILE_ANTI_SEPERATOR, FILE_SEPERATOR);
+							file = record.getKey();
+							file = file.replace(FILE_ANTI_SEPERATOR, FILE_SEPERATOR);
+							qry.setAt(_url, row, toURL(si.getUrlpath(),
+									engine.getStringUtil().replace(file, rootPath, "", true, false)));
+
+							break;
+						case SearchIndex.TYPE_URL:
+							rootPath = si.getKey();
+							urlPath = si.getUrlpath();
+							try {
+								rootPath = getDirectory(si.getKey());
+							} catch (MalformedURLException e) {
+							}
+							if (Util.isEmpty(urlPath))
+								urlPath = rootPath;
+							file = record.getKey();
+							qry.setAt(_url, row,
+									toURL(urlPath, engine.getStringUtil().replace(file, rootPath, "", true, false)));
+
+							break;
+						case SearchIndex.TYPE_CUSTOM:
+							qry.setAt(_url, row, url);
+							break;
+						default:
+							qry.setAt(_url, row, toURL(si.getUrlpath(), url));
+							break;
 						}
-						if (Util.isEmpty(urlPath))
-							urlPath = rootPath;
-						file = record.getKey();
-						qry.setAt(_url, row,
-								toURL(urlPath, engine.getStringUtil().replace(file, rootPath, "", true, false)));
-
-						break;
-					case SearchIndex.TYPE_CUSTOM:
-						qry.setAt(_url, row, url);
-						break;
-					default:
-						qry.setAt(_url, row, toURL(si.getUrlpath(), url));
-						break;
-					}
 
-					if (Util.isEmpty(title))
-						qry.setAt(_title, row, si.getTitle());
-					if (Util.isEmpty(custom1))
-						qry.setAt(_custom1, row, si.getCustom1());
-					if (Util.isEmpty(custom2))
-						qry.setAt(_custom2, row, si.getCustom2());
-					if (Util.isEmpty(custom3))
-						qry.setAt(_custom3, row, si.getCustom3());
-					if (Util.isEmpty(custom4))
-						qry.setAt(_custom4, row, si.getCustom4());
+						if (Util.isEmpty(title))
+							qry.setAt(_title, row, si.getTitle());
+						if (Util.isEmpty(custom1))
+							qry.setAt(_custom1, row, si.getCustom1());
+						if (Util.isEmpty(custom2))
+							qry.setAt(_custom2, row, si.getCustom2());
+						if (Util.isEmpty(custom3))
+							qry.setAt(_custom3, row, si.getCustom3());
+						if (Util.isEmpty(custom4))
+							qry.setAt(_custom4, row, si.getCustom4());
 
+					}
 				}
 			}
+			return startrow;
+		} finally {
+			try {
+				if (page != null)
+					page.close();
+			} finally {
+				unlock(l);
+			}
 		}
-		return startrow;
 	}
 
 	public static String getDirectory(String strUrl) throws MalformedURLException {
@@ -829,23 +907,122 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 		return rtn;
 	}
 
-	private Lock lock() throws SearchException {
+	/**
+	 * shared lock of the collection, held by searches and index updates
+	 */
+	protected final Lock readLock() throws SearchException {
+		return lock(lock.readLock(), "read");
+	}
+
+	private Lock writeLock() throws SearchException {
+		return lock(lock.writeLock(), "write");
+	}
+
+	private Lock lock(Lock l, String type) throws SearchException {
+		// fast path, no contention
+		if (l.tryLock())
+			return l;
+
+		long start = System.nanoTime();
+		boolean locked;
 		try {
-			return lock.lock(getId(), LOCK_TIMEOUT);
-			// manager.lock(LockManager.TYPE_EXCLUSIVE,getId(),LOCK_TIMEOUT,ThreadLocalPageContext.get().getId());
-		} catch (Exception e) {
+			locked = l.tryLock(LOCK_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw CommonUtil.toSearchException(e);
 		}
+		long waited = System.nanoTime() - start;
+		lockWaits.increment();
+		lockWaitNanos.add(waited);
+		lockWaitMaxNanos.accumulateAndGet(waited, Math::max);
+
+		if (!locked)
+			throw new SearchException("timeout after [" + LOCK_TIMEOUT + "ms] waiting for the " + type
+					+ " lock of collection [" + name + "]");
+		if (log != null)
+			log.log(Log.LEVEL_DEBUG, "Collection:" + name, "waited [" + TimeUnit.NANOSECONDS.toMillis(waited)
+					+ "ms] for the " + type + " lock of collection [" + name + "]");
+		return l;
+	}
 
+	protected final void unlock(Lock l) {
+		l.unlock();
 	}
 
-	private void unlock(Lock l) {
-		lock.unlock(l);
-		// manager.unlock(ThreadLocalPageContext.get().getId());
+	private static ReentrantReadWriteLock getLock(String id) {
+		synchronized (locks) {
+			locks.values().removeIf(ref -> ref.get() == null);
+			WeakReference<ReentrantReadWriteLock> ref = locks.get(id);
+			ReentrantReadWriteLock lock = ref == null ? null : ref.get();
+			if (lock == null) {
+				lock = new ReentrantReadWriteLock();
+				locks.put(id, new WeakReference<ReentrantReadWriteLock>(lock));
+			}
+			return lock;
+		}
 	}
 
 	private String getId() {
-		return path.getRealResource(name).getAbsolutePath();
+		Resource res = path.getRealResource(name);
+		try {
+			return res.getCanonicalPath();
+		} catch (IOException e) {
+			return res.getAbsolutePath();
+		}
+	}
+
+	/**
+	 * returns a setting of this collection, looked up in the collection definition (search.json) first,
+	 * then as system property "lucee.search.&lt;name&gt;" or environment variable
+	 * "LUCEE_SEARCH_&lt;NAME&gt;"
+	 * 
+	 * @param name name of the setting
+	 * @param defaultValue value returned when the setting is not defined
+	 * @return value of the setting
+	 */
+	protected final String getSetting(String name, String defaultValue) {
+		Struct sctColl = searchEngine.getCollectionStruct(getName());
+		if (sctColl != null) {
+			String value = engine.getCastUtil().toString(sctColl.get(name, null), null);
+			if (!Util.isEmpty(value, true))
+				return value.trim();
+		}
+		return CommonUtil.getSystemPropOrEnvVar("lucee.search." + name, defaultValue);
+	}
+
+	protected final int getSetting(String name, int defaultValue) {
+		String value = getSetting(name, null);
+		if (value == null)
+			return defaultValue;
+		return engine.getCastUtil().toIntValue(value, defaultValue);
+	}
+
+	protected final double getSetting(String name, double defaultValue) {
+		String value = getSetting(name, null);
+		if (value == null)
+			return defaultValue;
+		return engine.getCastUtil().toDoubleValue(value, defaultValue);
+	}
+
+	protected final boolean getSetting(String name, boolean defaultValue) {
+		String value = getSetting(name, null);
+		if (value == null)
+			return defaultValue;
+		return engine.getCastUtil().toBooleanValue(value, defaultValue);
+	}
+
+	/**
+	 * returns runtime statistics of this collection, like how often and how long callers had to wait
+	 * for the collection lock
+	 * 
+	 * @return statistics
+	 */
+	public Struct getStatistics() {
+		Struct sct = engine.getCreationUtil().createStruct();
+		sct.setEL("lockWaitCount", Double.valueOf(lockWaits.sum()));
+		sct.setEL("lockWaitTime", Double.valueOf(TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.sum())));
+		sct.setEL("lockWaitMaxTime", Double.valueOf(TimeUnit.NANOSECONDS.toMillis(lockWaitMaxNanos.get())));
+		return sct;
 	}
 
 	@Override
@@ -866,7 +1043,6 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 		Entry<String, SearchIndex> entry;
 		SearchIndex index;
 		int row = 0;
-		IndexReader reader;
 		while (it.hasNext()) {
 			query.addRow();
 			row++;
@@ -893,19 +1069,8 @@ public abstract class SearchCollectionSupport implements SearchCollection {
 				query.setAt("urlpath", row, index.getUrlpath());
 				query.setAt("type", row, SearchIndexImpl.toStringTypeEL(index.getType()));
 
-				if (index instanceof SearchIndexImpl) {
-					SearchIndexImpl sii = (SearchIndexImpl) index;
-					reader = null;
-					try {
-						reader = sii.getIndexReader();
-						query.setAt("doccount", row, reader.numDocs());
-					} catch (IOException ioe) {
-					} finally {
-						if (reader != null) {
-							CommonUtil.closeSilently(reader);
-						}
-					}
-				}
+				// served from the cached count of the index, no reader is opened
+				query.setAt("doccount", row, getDocumentCount(index.getId()));
 
 			} catch (PageException pe) {
 			}
@@ -1,6 +1,7 @@
 package org.lucee.extension.search;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 
@@ -13,6 +14,11 @@ public class SearchDataImpl implements SearchData {
 	private int suggestionMax;
 	private String suggestionQuery;
 	private int recordsSearched;
+	private String cursor;
+	private String nextCursor;
+	private String facets;
+	private String sort;
+	private Map<String, Map<String, Integer>> facetCounts;
 
 	public SearchDataImpl(int suggestionMax) {
 		this(new HashMap(), suggestionMax);
@@ -57,7 +63,87 @@ public class SearchDataImpl implements SearchData {
 		return recordsSearched;
 	}
 
+	/**
+	 * cursor returned by a previous search (see getNextCursor), the search continues behind the last row
+	 * of that search
+	 */
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * not returned by cfsearch yet, it needs a core that puts it into the status struct (see README)
+	 * 
+	 * @return opaque cursor pointing behind the last row returned, null if there are no more rows
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * order of the results, a list of fields each optionally followed by asc or desc (for example
+	 * "modified desc, title"), by default the results are ordered by score
+	 */
+	public void setSort(String sort) {
+		this.sort = sort;
+	}
+
+	public String getSort() {
+		return sort;
+	}
+
+	/**
+	 * facet dimensions to count the hits for (list of category, categoryTree, type, author, or true for
+	 * all of them)
+	 */
+	public void setFacets(String facets) {
+		this.facets = facets;
+	}
+
+	public String getFacets() {
+		return facets;
+	}
+
+	/**
+	 * adds the facet counts of a collection, counts of the same value are summed up
+	 */
+	public void addFacetCounts(Map<String, Map<String, Integer>> counts) {
+		if (counts == null)
+			return;
+		if (facetCounts == null)
+			facetCounts = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, Integer>> dim: counts.entrySet()) {
+			Map<String, Integer> values = facetCounts.computeIfAbsent(dim.getKey(), k -> new LinkedHashMap<>());
+			for (Map.Entry<String, Integer> e: dim.getValue().entrySet()) {
+				values.merge(e.getKey(), e.getValue(), Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * not returned by cfsearch yet, it needs a core that puts it into the status struct (see README)
+	 * 
+	 * @return number of hits per facet dimension and value, null if no facets were requested
+	 */
+	public Map<String, Map<String, Integer>> getFacetCounts() {
+		return facetCounts;
+	}
+
 	// kept so older Lucee cores that call this via MethodHandle reflection don't throw NoSuchMethodException
 	public void setAddionalAttribute(String name, Object value) {
+		if ("cursor".equalsIgnoreCase(name))
+			cursor = value == null ? null : value.toString();
+		else if ("facets".equalsIgnoreCase(name))
+			facets = value == null ? null : value.toString();
+		else if ("sort".equalsIgnoreCase(name))
+			sort = value == null ? null : value.toString();
 	}
 }
\ No newline at end of file
@@ -169,9 +169,9 @@ public abstract class SearchEngineSupport implements SearchEngine {
 		final String v = "VARCHAR";
 		Query query = null;
 		String[] cols = new String[] { "external", "language", "mapped", "name", "online", "path", "registered",
-				"lastmodified", "categories", "charset", "created", "size", "doccount", "mode", "embedding", "ratio" };
+				"lastmodified", "categories", "charset", "created", "size", "doccount", "mode", "embedding", "ratio", "statistics" };
 		String[] types = new String[] { "BOOLEAN", v, "BOOLEAN", v, "BOOLEAN", v, v, "DATE", "BOOLEAN", v, "OBJECT",
-				"DOUBLE", "DOUBLE", v, v, "DOUBLE" };
+				"DOUBLE", "DOUBLE", v, v, "DOUBLE", "OBJECT" };
 		try {
 			query = engine.getCreationUtil().createQuery(cols, types, collections.size(), "query");
 		} catch (PageException e) {
@@ -204,6 +204,8 @@ public abstract class SearchEngineSupport implements SearchEngine {
 					query.setAt("mode", i + 1, scs.getMode());
 					query.setAt("embedding", i + 1, scs.getEmbedding());
 					query.setAt("ratio", i + 1, scs.getRatio());
+					// lock waits and cache hits, see SearchCollectionSupport.getStatistics()
+					query.setAt("statistics", i + 1, scs.getStatistics());
 				}
 
 			} catch (PageException pe) {
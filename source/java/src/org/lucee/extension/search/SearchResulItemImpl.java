@@ -66,6 +66,51 @@ public class SearchResulItemImpl implements SearchResulItem {
 		this.size = size;
 	}
 
+	/**
+	 * constructor for items that load their values lazily, see {@link #load()}
+	 * 
+	 * @param id
+	 * @param score
+	 * @param categoryTree
+	 * @param category
+	 */
+	protected SearchResulItemImpl(String id, float score, String categoryTree, String category) {
+		this.id = id;
+		this.score = score;
+		this.categoryTree = categoryTree;
+		this.category = category;
+	}
+
+	/**
+	 * called before a value is read, items loading their values lazily set them here with
+	 * {@link #init}
+	 */
+	protected void load() {
+	}
+
+	/**
+	 * called the first time the context is read and no context was set with the constructor
+	 */
+	protected Object createContext() {
+		return "";
+	}
+
+	protected final void init(String title, String key, String url, String summary, String contents, String custom1,
+			String custom2, String custom3, String custom4, String mimeType, String author, String size) {
+		this.title = title;
+		this.key = key;
+		this.url = url;
+		this.summary = summary;
+		this.contents = contents;
+		this.custom1 = custom1;
+		this.custom2 = custom2;
+		this.custom3 = custom3;
+		this.custom4 = custom4;
+		this.mimeType = mimeType;
+		this.author = author;
+		this.size = size;
+	}
+
 	@Override
 	public int getRecordsSearched() {
 		return recordsSearched;
@@ -78,19 +123,26 @@ public class SearchResulItemImpl implements SearchResulItem {
 
 	@Override
 	public String getSummary() {
+		load();
 		return summary;
 	}
 
 	public String getContents() {
+		load();
 		return contents;
 	}
 
 	public Object getContext() {
+		if (context == null) {
+			load();
+			context = createContext();
+		}
 		return context;
 	}
 
 	@Override
 	public String getTitle() {
+		load();
 		return title;
 	}
 
@@ -101,36 +153,43 @@ public class SearchResulItemImpl implements SearchResulItem {
 
 	@Override
 	public String getKey() {
+		load();
 		return key;
 	}
 
 	@Override
 	public String getUrl() {
+		load();
 		return url;
 	}
 
 	@Override
 	public String getCustom1() {
+		load();
 		return custom1;
 	}
 
 	@Override
 	public String getCustom2() {
+		load();
 		return custom2;
 	}
 
 	@Override
 	public String getCustom3() {
+		load();
 		return custom3;
 	}
 
 	@Override
 	public String getCustom4() {
+		load();
 		return custom4;
 	}
 
 	@Override
 	public String getCustom(int index) throws SearchException {
+		load();
 		if (index == 1)
 			return custom1;
 		if (index == 2)
@@ -164,6 +223,7 @@ public class SearchResulItemImpl implements SearchResulItem {
 	 */
 	@Override
 	public String getMimeType() {
+		load();
 		return mimeType;
 	}
 
@@ -172,6 +232,7 @@ public class SearchResulItemImpl implements SearchResulItem {
 	 */
 	@Override
 	public String getAuthor() {
+		load();
 		return author;
 	}
 
@@ -180,6 +241,7 @@ public class SearchResulItemImpl implements SearchResulItem {
 	 */
 	@Override
 	public String getSize() {
+		load();
 		return size;
 	}
 
@@ -188,6 +250,6 @@ public class SearchResulItemImpl implements SearchResulItem {
 	 */
 	@Override
 	public String getContextSummary() {
-		return context.toString();
+		return getContext().toString();
 	}
 }
\ No newline at end of file
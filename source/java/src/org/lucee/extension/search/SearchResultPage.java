@@ -0,0 +1,78 @@
+package org.lucee.extension.search;
+
+import java.io.Closeable;
+import java.util.Map;
+
+import org.lucee.extension.search.lucene.util.CommonUtil;
+
+import lucee.runtime.search.SearchResulItem;
+
+/**
+ * one page of the results of a collection, returned by collections that handle startrow and maxrow
+ * themselves. The items of a page may load their values lazily, the resources they read from stay
+ * open until the page is closed.
+ */
+public final class SearchResultPage implements Closeable {
+
+	private final SearchResulItem[] items;
+	private final int totalHits;
+	private final String nextCursor;
+	private final Closeable resources;
+	private Map<String, Map<String, Integer>> facetCounts;
+
+	/**
+	 * @param items the rows of the page
+	 * @param totalHits number of hits of the search in this collection
+	 * @param nextCursor cursor pointing behind the last row of this page, null if there is no next page
+	 */
+	public SearchResultPage(SearchResulItem[] items, int totalHits, String nextCursor) {
+		this(items, totalHits, nextCursor, null);
+	}
+
+	/**
+	 * @param items the rows of the page
+	 * @param totalHits number of hits of the search in this collection
+	 * @param nextCursor cursor pointing behind the last row of this page, null if there is no next page
+	 * @param resources released when the page is closed, null if there is nothing to release
+	 */
+	public SearchResultPage(SearchResulItem[] items, int totalHits, String nextCursor, Closeable resources) {
+		this.items = items;
+		this.totalHits = totalHits;
+		this.nextCursor = nextCursor;
+		this.resources = resources;
+	}
+
+	public SearchResulItem[] getItems() {
+		return items;
+	}
+
+	public int getTotalHits() {
+		return totalHits;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @param facetCounts number of hits per facet dimension and value
+	 */
+	public void setFacetCounts(Map<String, Map<String, Integer>> facetCounts) {
+		this.facetCounts = facetCounts;
+	}
+
+	/**
+	 * @return number of hits per facet dimension and value, null if no facets were counted
+	 */
+	public Map<String, Map<String, Integer>> getFacetCounts() {
+		return facetCounts;
+	}
+
+	/**
+	 * releases the resources of the page, the items can no longer load values afterwards
+	 */
+	@Override
+	public void close() {
+		CommonUtil.closeSilently(resources);
+	}
+}
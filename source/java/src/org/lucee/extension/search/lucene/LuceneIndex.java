@@ -0,0 +1,580 @@
+package org.lucee.extension.search.lucene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager.RefreshListener;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.spell.SpellChecker;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.lucee.extension.search.lucene.docs.FieldUtil;
+
+import lucee.commons.io.log.Log;
+
+/**
+ * long living handle for a single index directory of a collection, keeps the directory, a single
+ * IndexWriter and a SearcherManager open. Searchers read the last commit until a write is published,
+ * from then on they are fed from the writer (near real time). Changes are committed in groups,
+ * either when enough operations are pending or after the commit interval. Searchers are refreshed
+ * after every change, or when a refresh interval is set, in the background within that interval.
+ * No commit or refresh happens while a write runs on the index (see {@link #beginWrite()}), so a
+ * write replacing all documents is committed and becomes visible as a whole. It also keeps the
+ * SpellChecker of the current dictionary of the index and the facet state of the reader searched last.
+ */
+final class LuceneIndex implements Closeable {
+
+	interface WriterConfigFactory {
+		IndexWriterConfig create() throws IOException;
+	}
+
+	private static ScheduledExecutorService scheduler;
+
+	private final Path path;
+	private final WriterConfigFactory configFactory;
+	private final long commitInterval;
+	private final int commitMaxPending;
+	private final long refreshInterval;
+	private final Executor searchExecutor;
+	private final Log log;
+
+	private FSDirectory directory;
+	private IndexWriter writer;
+	private SearcherManager searcherManager;
+	// true when the searcher manager is fed from the writer, false while it reads the last commit
+	private boolean nearRealTime;
+	private long committedSeqNo;
+	private ScheduledFuture<?> scheduledCommit;
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+	// held to commit or refresh and to start a write, so neither happens while a write runs
+	private final Object publishLock = new Object();
+	private volatile boolean writing;
+	// number of live documents of the current searcher, -1 when not known
+	private volatile int numDocs = -1;
+	private Path spellPath;
+	private FSDirectory spellDirectory;
+	private SpellChecker spellChecker;
+	// the checker replaced last, closed with the next swap so suggestions still running on it can finish
+	private FSDirectory retiredSpellDirectory;
+	private SpellChecker retiredSpellChecker;
+	// global ordinals of the facet values per reader, removed when the reader is closed; empty for
+	// readers without facet values
+	private final Map<IndexReader.CacheKey, Optional<SortedSetDocValuesReaderState>> facetsStates =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * @param path index directory
+	 * @param configFactory creates the config for the writer
+	 * @param commitInterval max time in milliseconds changes stay uncommitted, 0 commits every change
+	 * @param commitMaxPending number of pending operations that trigger a commit right away
+	 * @param refreshInterval max time in milliseconds until a change is visible to searchers, 0
+	 *            refreshes the searchers with every change
+	 * @param searchExecutor executor the searchers search the slices of the index with, null to search
+	 *            on the calling thread
+	 * @param log log used for background commits
+	 */
+	LuceneIndex(Path path, WriterConfigFactory configFactory, long commitInterval, int commitMaxPending,
+			long refreshInterval, Executor searchExecutor, Log log) {
+		this.path = path;
+		this.configFactory = configFactory;
+		this.commitInterval = commitInterval;
+		this.commitMaxPending = commitMaxPending;
+		this.refreshInterval = refreshInterval;
+		this.searchExecutor = searchExecutor;
+		this.log = log;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * returns the writer of this index, creates the index if it does not exist yet
+	 *
+	 * @return writer
+	 * @throws IOException
+	 */
+	public synchronized IndexWriter getWriter() throws IOException {
+		if (writer != null && !writer.isOpen()) {
+			// the writer was rolled back or hit a tragic exception, start over from the last commit
+			reset();
+		}
+		if (writer == null) {
+			IndexWriterConfig config = configFactory.create();
+			config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+			boolean exists = DirectoryReader.indexExists(getDirectory());
+			writer = new IndexWriter(getDirectory(), config);
+			// a new index is committed empty, so searches read it while the first write is running
+			if (!exists)
+				writer.commit();
+			committedSeqNo = writer.getMaxCompletedSequenceNumber();
+			numDocs = -1;
+		}
+		return writer;
+	}
+
+	private synchronized SearcherManager getSearcherManager() throws IOException {
+		if (searcherManager == null) {
+			// nothing was published since the writer was opened (if it is at all), so the last commit is
+			// what searchers see; searches do not open the writer and its write.lock
+			if (!DirectoryReader.indexExists(getDirectory()))
+				throw new IOException("there is no index in [" + path + "]");
+			setSearcherManager(new SearcherManager(getDirectory(), createSearcherFactory()), false);
+		}
+		return searcherManager;
+	}
+
+	private SearcherFactory createSearcherFactory() {
+		if (searchExecutor == null)
+			return null;
+		return new SearcherFactory() {
+			@Override
+			public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+				return new IndexSearcher(reader, searchExecutor);
+			}
+		};
+	}
+
+	private synchronized void setSearcherManager(SearcherManager sm, boolean nearRealTime) {
+		sm.addListener(new RefreshListener() {
+			@Override
+			public void beforeRefresh() {
+			}
+
+			@Override
+			public void afterRefresh(boolean didRefresh) {
+				if (didRefresh)
+					numDocs = -1;
+			}
+		});
+		SearcherManager old = searcherManager;
+		searcherManager = sm;
+		this.nearRealTime = nearRealTime;
+		numDocs = -1;
+		// searchers acquired from the old manager are still released with a decRef, see release
+		if (old != null) {
+			try {
+				old.close();
+			} catch (Exception e) {
+			}
+		}
+	}
+
+	private FSDirectory getDirectory() throws IOException {
+		if (directory == null)
+			directory = FSDirectory.open(path);
+		return directory;
+	}
+
+	/**
+	 * acquire the current searcher, every searcher acquired needs to be released with
+	 * {@link #release(IndexSearcher)}
+	 *
+	 * @return current searcher
+	 * @throws IOException
+	 */
+	public IndexSearcher acquire() throws IOException {
+		return getSearcherManager().acquire();
+	}
+
+	public void release(IndexSearcher searcher) throws IOException {
+		if (searcher == null)
+			return;
+		SearcherManager sm;
+		synchronized (this) {
+			sm = searcherManager;
+		}
+		// the manager was closed in the meantime, releasing a searcher is a simple decRef of its reader
+		if (sm == null)
+			searcher.getIndexReader().decRef();
+		else
+			sm.release(searcher);
+	}
+
+	/**
+	 * returns the number of documents in the index, as seen by searchers. The number is cached until
+	 * the next refresh; when the index is not open for writing yet it is read from the last commit.
+	 *
+	 * @return number of documents
+	 * @throws IOException
+	 */
+	public int getNumDocs() throws IOException {
+		int n = numDocs;
+		if (n >= 0)
+			return n;
+		synchronized (this) {
+			if (writer != null && writer.isOpen()) {
+				IndexSearcher searcher = acquire();
+				try {
+					n = searcher.getIndexReader().numDocs();
+				} finally {
+					release(searcher);
+				}
+			}
+			else {
+				n = 0;
+				if (DirectoryReader.indexExists(getDirectory())) {
+					for (SegmentCommitInfo info: SegmentInfos.readLatestCommit(getDirectory())) {
+						n += info.info.maxDoc() - info.getDelCount() - info.getSoftDelCount();
+					}
+				}
+			}
+			numDocs = n;
+		}
+		return n;
+	}
+
+	/**
+	 * makes changes done with the writer visible to searchers acquired after this call, with a refresh
+	 * interval this is left to a background refresh within that interval
+	 *
+	 * @throws IOException
+	 */
+	public void refresh() throws IOException {
+		if (refreshInterval > 0) {
+			if (refreshScheduled.compareAndSet(false, true))
+				getScheduler().schedule(this::refreshEL, refreshInterval, TimeUnit.MILLISECONDS);
+			return;
+		}
+		refreshNow();
+	}
+
+	/**
+	 * waits until all changes published so far are visible to searchers, for callers that need to read
+	 * their own writes. While a write is running searchers keep the state before it.
+	 *
+	 * @throws IOException
+	 */
+	public void awaitRefresh() throws IOException {
+		refreshNow();
+	}
+
+	private void refreshNow() throws IOException {
+		synchronized (publishLock) {
+			// the write running is made visible when it is published
+			if (writing)
+				return;
+			SearcherManager sm;
+			IndexWriter w;
+			synchronized (this) {
+				sm = searcherManager;
+				w = writer != null && writer.isOpen() ? writer : null;
+				if (sm != null && !nearRealTime && w != null) {
+					// the first write published, from now on searchers are fed from the writer
+					setSearcherManager(new SearcherManager(w, true, false, createSearcherFactory()), true);
+					return;
+				}
+			}
+			if (sm != null)
+				sm.maybeRefreshBlocking();
+		}
+	}
+
+	private void refreshEL() {
+		refreshScheduled.set(false);
+		try {
+			refreshNow();
+		} catch (Exception e) {
+			if (log != null)
+				log.log(Log.LEVEL_ERROR, "search", "failed to refresh the searchers of index [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * to call before a write operation uses the writer, until it is published with {@link #endWrite()}
+	 * its changes are neither committed nor made visible to searchers (except by an explicit
+	 * {@link #commit()}). Writes to an index are serialized by the caller.
+	 */
+	public void beginWrite() {
+		// waits for a commit or refresh running
+		synchronized (publishLock) {
+			writing = true;
+		}
+	}
+
+	/**
+	 * ends a write started with {@link #beginWrite()}, its changes are committed and refreshed with the
+	 * next {@link #changed()} and {@link #refresh()}
+	 */
+	public void endWrite() {
+		synchronized (publishLock) {
+			writing = false;
+		}
+	}
+
+	/**
+	 * discards all changes since the last commit and ends the write running, searchers read the last
+	 * commit again
+	 *
+	 * @throws IOException
+	 */
+	public void rollback() throws IOException {
+		synchronized (publishLock) {
+			try {
+				IndexWriter w;
+				synchronized (this) {
+					if (scheduledCommit != null) {
+						scheduledCommit.cancel(false);
+						scheduledCommit = null;
+					}
+					w = writer;
+				}
+				if (w != null && w.isOpen())
+					w.rollback();
+			} finally {
+				synchronized (this) {
+					reset();
+				}
+				writing = false;
+			}
+		}
+	}
+
+	/**
+	 * to call after changes were done with the writer, commits right away when enough operations are
+	 * pending, otherwise makes sure a commit is scheduled
+	 *
+	 * @throws IOException
+	 */
+	public void changed() throws IOException {
+		boolean commitNow;
+		synchronized (this) {
+			if (writer == null || !writer.isOpen())
+				return;
+			long pending = writer.getMaxCompletedSequenceNumber() - committedSeqNo;
+			commitNow = commitInterval <= 0 || pending >= commitMaxPending;
+			if (!commitNow && scheduledCommit == null) {
+				scheduledCommit = getScheduler().schedule(this::commitEL, commitInterval, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (commitNow)
+			commit();
+	}
+
+	/**
+	 * commits all pending changes, also the ones of a write running when called by that write
+	 *
+	 * @throws IOException
+	 */
+	public void commit() throws IOException {
+		synchronized (publishLock) {
+			IndexWriter w;
+			synchronized (this) {
+				if (scheduledCommit != null) {
+					scheduledCommit.cancel(false);
+					scheduledCommit = null;
+				}
+				w = writer;
+			}
+			if (w == null || !w.hasUncommittedChanges())
+				return;
+			try {
+				long seqNo = w.commit();
+				synchronized (this) {
+					if (seqNo > committedSeqNo)
+						committedSeqNo = seqNo;
+				}
+			} catch (AlreadyClosedException e) {
+				// closed in the meantime, closing commits as well
+			}
+		}
+	}
+
+	private void commitEL() {
+		synchronized (this) {
+			scheduledCommit = null;
+		}
+		try {
+			synchronized (publishLock) {
+				// the write running is committed when it is published, see changed()
+				if (writing)
+					return;
+				commit();
+			}
+		} catch (Exception e) {
+			if (log != null)
+				log.log(Log.LEVEL_ERROR, "search", "failed to commit index [" + path + "]", e);
+		}
+	}
+
+	private void reset() {
+		if (searcherManager != null) {
+			try {
+				searcherManager.close();
+			} catch (Exception e) {
+			}
+			searcherManager = null;
+		}
+		writer = null;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (scheduledCommit != null) {
+			scheduledCommit.cancel(false);
+			scheduledCommit = null;
+		}
+		closeSpellChecker();
+		facetsStates.clear();
+		try {
+			if (searcherManager != null)
+				searcherManager.close();
+		} finally {
+			searcherManager = null;
+			try {
+				// closing the writer commits pending changes
+				if (writer != null && writer.isOpen())
+					writer.close();
+			} finally {
+				writer = null;
+				if (directory != null) {
+					directory.close();
+					directory = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * returns the facet state of a reader acquired from this index, it is created once per reader, so
+	 * searches on an older and a newer reader do not rebuild it in turn
+	 *
+	 * @param reader reader of a searcher of this index
+	 * @return state or null if no document of the reader has facet values
+	 * @throws IOException
+	 */
+	public SortedSetDocValuesReaderState getFacetsState(IndexReader reader) throws IOException {
+		IndexReader.CacheHelper helper = reader.getReaderCacheHelper();
+		if (helper == null)
+			return createFacetsState(reader);
+		IndexReader.CacheKey key = helper.getKey();
+		Optional<SortedSetDocValuesReaderState> state = facetsStates.get(key);
+		if (state == null) {
+			// only searches on the same reader wait for each other
+			try {
+				state = facetsStates.computeIfAbsent(key, k -> {
+					try {
+						Optional<SortedSetDocValuesReaderState> s = Optional.ofNullable(createFacetsState(reader));
+						helper.addClosedListener(facetsStates::remove);
+						return s;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+		return state.orElse(null);
+	}
+
+	private static SortedSetDocValuesReaderState createFacetsState(IndexReader reader) throws IOException {
+		for (LeafReaderContext leaf: reader.leaves()) {
+			// indexes written by older versions have no facet values
+			if (leaf.reader().getFieldInfos().fieldInfo(FacetsConfig.DEFAULT_INDEX_FIELD_NAME) != null)
+				return new DefaultSortedSetDocValuesReaderState(reader, FieldUtil.FACETS_CONFIG);
+		}
+		return null;
+	}
+
+	/**
+	 * returns the cached SpellChecker if it reads from the given dictionary directory, otherwise opens
+	 * one for it and closes the previous one
+	 *
+	 * @param path dictionary directory
+	 * @return SpellChecker for that directory
+	 * @throws IOException
+	 */
+	public synchronized SpellChecker getSpellChecker(Path path) throws IOException {
+		if (spellChecker != null && path.equals(spellPath))
+			return spellChecker;
+		FSDirectory dir = FSDirectory.open(path);
+		SpellChecker sc;
+		try {
+			sc = new SpellChecker(dir);
+		} catch (IOException | RuntimeException e) {
+			dir.close();
+			throw e;
+		}
+		close(retiredSpellChecker, retiredSpellDirectory);
+		retiredSpellChecker = spellChecker;
+		retiredSpellDirectory = spellDirectory;
+		spellPath = path;
+		spellDirectory = dir;
+		spellChecker = sc;
+		return sc;
+	}
+
+	/**
+	 * @return the cached SpellChecker or null if none was opened yet
+	 */
+	public synchronized SpellChecker getSpellChecker() {
+		return spellChecker;
+	}
+
+	private void closeSpellChecker() {
+		close(retiredSpellChecker, retiredSpellDirectory);
+		close(spellChecker, spellDirectory);
+		retiredSpellChecker = null;
+		retiredSpellDirectory = null;
+		spellChecker = null;
+		spellDirectory = null;
+		spellPath = null;
+	}
+
+	private static void close(SpellChecker sc, FSDirectory dir) {
+		if (sc != null) {
+			try {
+				sc.close();
+			} catch (Exception e) {
+			}
+		}
+		if (dir != null) {
+			try {
+				dir.close();
+			} catch (Exception e) {
+			}
+		}
+	}
+
+	// runs the group commits and the interval refreshes of all indexes
+	private static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor(1, r -> {
+				Thread t = new Thread(r, "lucee-search-commit");
+				t.setDaemon(true);
+				return t;
+			});
+			// the core does not release a search engine, the thread ends when nothing is scheduled, so it does
+			// not keep the classes of a reloaded or removed extension alive
+			stpe.setKeepAliveTime(60, TimeUnit.SECONDS);
+			stpe.allowCoreThreadTimeOut(true);
+			stpe.setRemoveOnCancelPolicy(true);
+			scheduler = stpe;
+		}
+		return scheduler;
+	}
+}
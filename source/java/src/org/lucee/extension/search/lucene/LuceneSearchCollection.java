@@ -9,47 +9,76 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiBits;
 import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.KnnFloatVectorQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.highlight.Formatter;
+import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
 import org.apache.lucene.search.spell.Dictionary;
 import org.apache.lucene.search.spell.LuceneDictionary;
 import org.apache.lucene.search.spell.SpellChecker;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 import org.lucee.extension.search.AddionalAttrsHelper;
 import org.lucee.extension.search.IndexResultImpl;
 import org.lucee.extension.search.SearchCollectionSupport;
+import org.lucee.extension.search.SearchDataImpl;
 import org.lucee.extension.search.SearchEngineSupport;
 import org.lucee.extension.search.SearchResulItemImpl;
+import org.lucee.extension.search.SearchResultPage;
 import org.lucee.extension.search.SuggestionItemImpl;
 import org.lucee.extension.search.lucene.docs.CustomDocument;
 import org.lucee.extension.search.lucene.docs.FieldUtil;
@@ -57,6 +86,8 @@ import org.lucee.extension.search.lucene.embedding.EmbeddingService;
 import org.lucee.extension.search.lucene.embedding.TfIdfEmbeddingService;
 import org.lucee.extension.search.lucene.embedding.Word2VecEmbeddingService;
 import org.lucee.extension.search.lucene.highlight.HTMLFormatterWithScore;
+import org.lucee.extension.search.lucene.highlight.KeywordMatcher;
+import org.lucee.extension.search.lucene.highlight.OffsetHighlighter;
 import org.lucee.extension.search.lucene.highlight.Text;
 import org.lucee.extension.search.lucene.highlight.TextCollection;
 import org.lucee.extension.search.lucene.highlight.TextHandler;
@@ -64,8 +95,9 @@ import org.lucee.extension.search.lucene.highlight.TextSplitter;
 import org.lucee.extension.search.lucene.net.WebCrawler;
 import org.lucee.extension.search.lucene.query.Literal;
 import org.lucee.extension.search.lucene.query.Op;
+import org.lucee.extension.search.lucene.query.QueryCache;
+import org.lucee.extension.search.lucene.query.QueryCompiler;
 import org.lucee.extension.search.lucene.util.CommonUtil;
-import org.lucee.extension.search.lucene.util.SerializableObject;
 
 import lucee.commons.io.log.Log;
 import lucee.commons.io.res.Resource;
@@ -110,6 +142,10 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 	private static final String EMBEDDING_TF_IDF = "TF-IDF";
 	private static final String EMBEDDING_WORD2VEC = "word2vec";
 
+	// commit user data marking custom indexes that store the key as a single term
+	private static final String CUSTOM_KEY = "lucee.customKey";
+	private static final String CUSTOM_KEY_VERSION = "1";
+
 	private Resource collectionDir;
 	private boolean spellcheck;
 
@@ -122,8 +158,39 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 	private final CFMLEngine engine;
 	private Map<String, EmbeddingService> embeddingServices = new ConcurrentHashMap<>();
+	private final Map<String, LuceneIndex> luceneIndexes = new ConcurrentHashMap<>();
+
+	// merge policy, explicit merges only happen with optimize or the background maintenance
+	private final double mergeMaxSegmentMB;
+	private final double mergeSegmentsPerTier;
+	private final double mergeFloorSegmentMB;
+	private final double mergeDeletesPctAllowed;
+	// ratio of deleted documents that triggers a background forceMergeDeletes, 0 to disable
+	private final double mergeDeletesThreshold;
+	private final Set<String> maintenancePending = ConcurrentHashMap.newKeySet();
+	private final Set<String> spellPending = ConcurrentHashMap.newKeySet();
+
+	// writer settings, changes are committed in groups, not with every call
+	private final double ramBufferSizeMB;
+	private final long commitInterval;
+	private final int commitMaxPending;
+	// near real time mode, searchers are refreshed by a background thread within this interval (ms)
+	// instead of with every change
+	private final long refreshInterval;
+	private static ExecutorService maintenance;
+	// parsed criteria of recent searches
+	private final QueryCache queryCache;
+	// ranked hits of recent searches, disabled by default
+	private final ResultCache resultCache;
+	// threads searching the slices of the indexes and loading the rows of a page, 0 does all of it on the
+	// calling thread
+	private final int searchThreads;
+	private ExecutorService searchExecutor;
+	// max number of values returned per facet dimension
+	private final int facetLimit;
+	// store the sentence ends of the contents, so the context passages do not need to find them again
+	private final boolean storeSentences;
 
-	private static final SerializableObject token = new SerializableObject();
 
 	public LuceneSearchCollection(SearchEngineSupport searchEngine, String name, Resource path, String language,
 			DateTime lastUpdate, DateTime created) throws SearchException {
@@ -174,6 +241,29 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		this.spellcheck = spellcheck;
 		collectionDir = getPath().getRealResource(toIdentityVariableName(getName()));
 
+		// merge settings
+		mergeMaxSegmentMB = getSetting("mergeMaxSegmentMB", 0D);
+		mergeSegmentsPerTier = getSetting("mergeSegmentsPerTier", 0D);
+		mergeFloorSegmentMB = getSetting("mergeFloorSegmentMB", 0D);
+		mergeDeletesPctAllowed = getSetting("mergeDeletesPctAllowed", 0D);
+		mergeDeletesThreshold = getSetting("mergeDeletesThreshold", 0.3D);
+
+		// writer settings
+		ramBufferSizeMB = getSetting("ramBufferSizeMB", IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+		commitInterval = getSetting("commitInterval", 1000);
+		commitMaxPending = getSetting("commitMaxPending", 1000);
+		refreshInterval = getSetting("nrtRefreshInterval", 0);
+		queryCache = new QueryCache(getSetting("queryCacheSize", 1000));
+		resultCache = new ResultCache(getSetting("resultCacheSize", 0), getSetting("resultCacheTimeToLive", 0));
+		searchThreads = getSetting("searchThreads", 0);
+		facetLimit = getSetting("facetLimit", 100);
+		storeSentences = getSetting("storeSentences", true);
+		try {
+			_getMergePolicy();
+		} catch (IllegalArgumentException e) {
+			throw new SearchException("invalid merge setting for collection [" + name + "]: " + e.getMessage());
+		}
+
 		log = searchEngine.getConfig().getLog("search");
 	}
 
@@ -189,12 +279,27 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 	@Override
 	protected void _optimize() throws SearchException {
-		IndexWriter[] writers = _getWriters(false);
-		for (int i = 0; i < writers.length; i++) {
-			try {
-				optimizeEL(writers[i]);
-			} finally {
-				close(writers[i]);
+		Resource[] dirs = _getIndexDirectories();
+		if (dirs == null)
+			return;
+		// optimize only holds the shared collection lock, so it has to be serialized with indexing
+		String id;
+		for (int i = 0; i < dirs.length; i++) {
+			id = dirs[i].getName();
+			// spell directories are maintained by the SpellChecker
+			if (!indexes.containsKey(id))
+				continue;
+			synchronized (getIndexToken(id)) {
+				try {
+					LuceneIndex li = getLuceneIndex(id);
+					optimizeEL(li.getWriter());
+					li.commit();
+				} catch (IOException e) {
+					error(e);
+				} catch (PageException e) {
+					error(new SearchException(e.getMessage()));
+				}
+				refreshEL(id);
 			}
 		}
 	}
@@ -215,20 +320,22 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		_checkLanguage(language);
 		int before = getDocumentCount(id);
 		IndexWriter writer = null;
-		synchronized (token) {
+		synchronized (getIndexToken(id)) {
 			try {
 				writer = _getWriter(id, true);
 				_index(id, writer, res, res.getName());
-				writer.forceMerge(1); // replaced optimize() with forceMerge(1)
 			} catch (SearchException e) {
+				rollbackEL(id);
 				throw e;
 			} catch (Exception e) {
+				rollbackEL(id);
 				throw CommonUtil.toSearchException(e);
 			} finally {
-				close(writer);
+				publishEL(id);
 			}
 			indexSpellCheck(id);
 		}
+		awaitRefreshEL(id);
 		if (getDocumentCount(id) == before)
 			return new IndexResultImpl(0, 0, 1);
 		return new IndexResultImpl(0, 1, 0);
@@ -241,18 +348,18 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		_checkLanguage(language);
 		int doccount = 0;
 		IndexWriter writer = null;
-		synchronized (token) {
+		synchronized (getIndexToken(id)) {
 			try {
 				writer = _getWriter(id, true);
 				doccount = _list(id, 0, writer, dir, new LuceneExtensionFileFilter(extensions, recurse), "");
-				// optimizeEL(writer);
-				optimize(writer);
 			} catch (SearchException e) {
+				rollbackEL(id);
 				throw e;
 			} catch (Exception e) {
+				rollbackEL(id);
 				throw CommonUtil.toSearchException(e);
 			} finally {
-				close(writer);
+				publishEL(id);
 			}
 			indexSpellCheck(id);
 		}
@@ -275,51 +382,95 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		}
 	}
 
+	/**
+	 * updates the spellcheck dictionary of the index. The first dictionary of an index is built right
+	 * away, later ones are rebuilt in the background while the current dictionary stays in use.
+	 * 
+	 * @param id index id
+	 */
 	private void indexSpellCheck(String id) throws SearchException {
 		if (!spellcheck)
 			return;
+		if (_getSpellNumber(id) == 0) {
+			try {
+				buildSpellCheck(id);
+			} catch (Exception e) {
+				throw CommonUtil.toSearchException(e);
+			}
+		}
+		else
+			scheduleSpellCheck(id);
+	}
 
-		IndexReader reader = null;
-		FSDirectory spellDir = null;
-		SpellChecker spellChecker = null;
-
-		Resource dir = _createSpellDirectory(id);
+	/**
+	 * rebuilds the dictionary in the background, triggers coming in while a rebuild is queued are
+	 * merged into it
+	 * 
+	 * @param id index id
+	 */
+	private void scheduleSpellCheck(final String id) {
+		if (!spellPending.add(id))
+			return;
 		try {
-			spellDir = FSDirectory.open(engine.getCastUtil().toFile(dir).toPath());
-			spellChecker = new SpellChecker(spellDir);
-
-			reader = _getReader(id, false);
-			Dictionary dictionary = new LuceneDictionary(reader, "contents");
-
-			spellChecker.indexDictionary(dictionary, _getConfig(), true);
-
+			getMaintenanceExecutor().execute(() -> {
+				spellPending.remove(id);
+				Lock lock = null;
+				try {
+					lock = readLock();
+					if (_getIndexDirectory(id, false).exists())
+						buildSpellCheck(id);
+				} catch (Exception e) {
+					error(e);
+				} finally {
+					if (lock != null)
+						unlock(lock);
+				}
+			});
 		} catch (Exception e) {
-			throw CommonUtil.toSearchException(e);
-		} finally {
-			if (spellChecker != null) try { spellChecker.close(); } catch (Exception e) {}
-			if (spellDir != null) try { spellDir.close(); } catch (Exception e) {}
-			closeEL(reader);
+			spellPending.remove(id);
+			error(e);
 		}
 	}
 
-	private void close(IndexWriter writer) throws SearchException {
-		if (writer != null) {
-			// print.out("w-close");
+	/**
+	 * builds the dictionary into a new directory and publishes it by renaming that directory, then
+	 * removes the older ones
+	 * 
+	 * @param id index id
+	 */
+	private void buildSpellCheck(String id) throws IOException, PageException, SearchException {
+		synchronized (CommonUtil.createToken("lucene-spell", _getIndexDirectory(id, false).getAbsolutePath())) {
+			long nbr = _getSpellNumber(id) + 1;
+			Resource tmp = collectionDir.getRealResource(id + "_" + nbr + "_spell.tmp");
+			if (tmp.exists())
+				tmp.remove(true);
+			tmp.mkdirs();
+
+			LuceneIndex li = null;
+			IndexSearcher searcher = null;
 			try {
-				writer.close();
-			} catch (IOException e) {
-				throw CommonUtil.toSearchException(e);
+				// the near real time reader already contains the changes published but not committed yet, a
+				// write running is not visible, its publish triggers another build
+				li = getLuceneIndex(id);
+				li.awaitRefresh();
+				searcher = li.acquire();
+				Dictionary dictionary = new LuceneDictionary(searcher.getIndexReader(), "contents");
+				try (FSDirectory spellDir = FSDirectory.open(engine.getCastUtil().toFile(tmp).toPath());
+						SpellChecker spellChecker = new SpellChecker(spellDir)) {
+					spellChecker.indexDictionary(dictionary, _getConfig(), true);
+				}
+			} catch (IOException | PageException | SearchException | RuntimeException e) {
+				engine.getResourceUtil().removeSilent(tmp, true);
+				throw e;
+			} finally {
+				releaseEL(li, searcher);
 			}
-		}
-	}
 
-	private static void close(IndexReader reader) throws SearchException {
-		if (reader != null) {
-			try {
-				reader.close();
-			} catch (IOException e) {
-				throw CommonUtil.toSearchException(e);
-			}
+			Resource dir = collectionDir.getRealResource(id + "_" + nbr + "_spell");
+			tmp.moveTo(dir);
+			// swap the cached SpellChecker before the old directory is removed
+			getLuceneIndex(id).getSpellChecker(engine.getCastUtil().toFile(dir).toPath());
+			_removeSpellDirectories(id, nbr);
 		}
 	}
 
@@ -348,22 +499,23 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		_checkLanguage(language);
 		info(url.toExternalForm());
 		int before = getDocumentCount(id);
-		IndexWriter writer = null;
-		synchronized (token) {
+		synchronized (getIndexToken(id)) {
 			try {
-				writer = _getWriter(id, true);
-				new WebCrawler(log).parse(writer, url, extensions, recurse, timeout);
-
-				optimize(writer);
+				IndexWriter writer = _getWriter(id, true);
+				// the pages get the same fields as the documents of the other index types
+				new WebCrawler(log).parse(doc -> writer.addDocument(embed(doc, id)), url, extensions, recurse, timeout);
 			} catch (SearchException e) {
+				rollbackEL(id);
 				throw e;
 			} catch (Exception e) {
+				rollbackEL(id);
 				throw CommonUtil.toSearchException(e);
 			} finally {
-				close(writer);
+				publishEL(id);
 			}
 			indexSpellCheck(id);
 		}
+		awaitRefreshEL(id);
 		if (getDocumentCount(id) == before)
 			return new IndexResultImpl(0, 0, 1);
 		return new IndexResultImpl(0, 1, 0);
@@ -386,53 +538,38 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 	 */
 	@Override
 	protected IndexResult _deleteCustom(String id, QueryColumn keyColumn) throws SearchException {
-
-		int countBefore = 0;
-		int countAfter = 0;
-
-		Map<String, Document> docs = new HashMap<String, Document>();
-
+		int removes = 0;
 		Set<String> keys = toSet(keyColumn);
 		IndexWriter writer = null;
-		String key;
-		IndexReader reader = null;
-		Document doc;
 
-		synchronized (token) {
+		synchronized (getIndexToken(id)) {
 			try {
+				writer = _getCustomWriter(id);
+				// count against the state before the delete, so we can report the number of removed documents
+				DirectoryReader reader = DirectoryReader.open(writer);
 				try {
-					reader = _getReader(id, false);
-					countBefore = reader.maxDoc();
-					for (int i = 0; i < countBefore; i++) {
-						doc = reader.document(i);
-						key = doc.getField("key").stringValue();
-						if (!keys.contains(key))
-							docs.put(key, doc);
+					IndexSearcher searcher = new IndexSearcher(reader);
+					Term term;
+					for (String key: keys) {
+						if (key == null)
+							continue;
+						term = new Term("key", key);
+						removes += searcher.count(new TermQuery(term));
+						writer.deleteDocuments(term);
 					}
-				} catch (Exception e) {
 				} finally {
-					close(reader);
+					closeEL(reader);
 				}
-				countAfter = docs.size();
-
-				writer = _getWriter(id, true);
-				Iterator<Entry<String, Document>> it = docs.entrySet().iterator();
-				while (it.hasNext()) {
-					writer.addDocument(embed(it.next().getValue(), id));
-				}
-				optimizeEL(writer);
-
 			} catch (SearchException e) {
 				throw e;
 			} catch (Exception e) {
 				throw CommonUtil.toSearchException(e);
 			} finally {
-				close(writer);
+				publishEL(id);
 			}
 			indexSpellCheck(id);
 		}
-		int removes = countBefore - countAfter;
-
+		scheduleMaintenance(id);
 		return new IndexResultImpl(removes, 0, 0);
 	}
 
@@ -470,80 +607,158 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		String c3;
 		String c4;
 
-		int countExisting = 0;
-		int countAdd = keyColumn.size();
-		int countNew = 0;
+		int inserts = 0;
+		int updates = 0;
 
-		Map<String, Document> docs = new HashMap<String, Document>();
 		IndexWriter writer = null;
-		synchronized (token) {
+		synchronized (getIndexToken(id)) {
 			try {
-				// read existing reader
-				IndexReader reader = null;
+				writer = _getCustomWriter(id);
+				// earlier writes not committed yet are kept when this one fails and is rolled back
+				if (writer.hasUncommittedChanges())
+					getLuceneIndex(id).commit();
+				// point in time view of the index before this call, used to tell inserts from updates
+				DirectoryReader reader = DirectoryReader.open(writer);
 				try {
-					reader = _getReader(id, false);
-					int len = reader.maxDoc();
-					Document doc;
-					for (int i = 0; i < len; i++) {
-						doc = reader.document(i);
-						docs.put(doc.getField("key").stringValue(), doc);
-					}
-				} catch (Exception e) {
-				} finally {
-					close(reader);
-				}
+					IndexSearcher searcher = new IndexSearcher(reader);
+					Set<String> done = new HashSet<String>();
+					int len = keyColumn.size();
+					String key;
+					Term term;
+					for (int i = 1; i <= len; i++) {
+						key = engine.getCastUtil().toString(keyColumn.get(i, null), null);
+						if (key == null)
+							continue;
 
-				countExisting = docs.size();
-				writer = _getWriter(id, true);
-				int len = keyColumn.size();
-				String key;
-				for (int i = 1; i <= len; i++) {
-					key = engine.getCastUtil().toString(keyColumn.get(i, null), null);
-					if (key == null)
-						continue;
+						StringBuilder body = new StringBuilder();
+						for (int y = 0; y < bodyColumns.length; y++) {
+							Object tmp = bodyColumns[y].get(i, null);
+							if (tmp != null) {
+								body.append(tmp.toString());
+								body.append(' ');
+							}
+						}
 
-					StringBuilder body = new StringBuilder();
-					for (int y = 0; y < bodyColumns.length; y++) {
-						Object tmp = bodyColumns[y].get(i, null);
-						if (tmp != null) {
-							body.append(tmp.toString());
-							body.append(' ');
+						t = getRow(title, i);
+						url = getRow(urlpath, i);
+						c1 = getRow(custom1, i);
+						c2 = getRow(custom2, i);
+						c3 = getRow(custom3, i);
+						c4 = getRow(custom4, i);
+
+						term = new Term("key", key);
+						// a key repeated within the query is written once more, but counted once
+						if (done.add(key)) {
+							if (searcher.count(new TermQuery(term)) == 0)
+								inserts++;
+							else
+								updates++;
 						}
+						// replaces an existing document with the same key or adds it
+						writer.updateDocument(term,
+								embed(CustomDocument.getDocument(t, key, body.toString(), url, c1, c2, c3, c4), id));
 					}
-					// t=(title==null)?null:Caster.toString(title.get(i,null),null);
-					// url=(urlpath==null)?null:Caster.toString(urlpath.get(i,null),null);
-
-					t = getRow(title, i);
-					url = getRow(urlpath, i);
-					c1 = getRow(custom1, i);
-					c2 = getRow(custom2, i);
-					c3 = getRow(custom3, i);
-					c4 = getRow(custom4, i);
-
-					docs.put(key, CustomDocument.getDocument(t, key, body.toString(), url, c1, c2, c3, c4));
-				}
-				countNew = docs.size();
-				Iterator<Entry<String, Document>> it = docs.entrySet().iterator();
-				Entry<String, Document> entry;
-				Document doc;
-				while (it.hasNext()) {
-					entry = it.next();
-					doc = entry.getValue();
-					writer.addDocument(embed(doc, id));
+				} finally {
+					closeEL(reader);
 				}
-				optimizeEL(writer);
-				// writer.optimize();
-
 			} catch (Exception ioe) {
+				// a failed update does not leave a part of the rows behind
+				rollbackEL(id);
 				throw CommonUtil.toSearchException(ioe);
-			} finally {
-				close(writer);
 			}
+			publishEL(id);
 			indexSpellCheck(id);
 		}
-		int inserts = countNew - countExisting;
+		scheduleMaintenance(id);
+		return new IndexResultImpl(0, inserts, updates);
+	}
+
+	/**
+	 * returns a writer for a custom index that appends to the existing index, indexes written before
+	 * the key was indexed as a single term are migrated first
+	 * 
+	 * @param id index id
+	 * @return writer
+	 */
+	private IndexWriter _getCustomWriter(String id) throws SearchException, IOException, PageException {
+		IndexWriter writer = _getWriter(id, false);
+		if (!CUSTOM_KEY_VERSION.equals(getCommitData(writer, CUSTOM_KEY))) {
+			if (writer.getDocStats().maxDoc > 0) {
+				// commit pending changes first, so a failed migration can be rolled back on its own
+				getLuceneIndex(id).commit();
+				try {
+					migrateCustomKey(id, writer);
+				} catch (IOException | PageException | RuntimeException e) {
+					try {
+						writer.rollback();
+					} catch (Exception ee) {
+					}
+					throw e;
+				}
+			}
+			setCommitData(writer, CUSTOM_KEY, CUSTOM_KEY_VERSION);
+		}
+		return writer;
+	}
 
-		return new IndexResultImpl(0, inserts, countAdd - inserts);
+	/**
+	 * older versions did store the key of a custom document as tokenized text, so it could not be used
+	 * to update a single document. This rewrites the index once with the key indexed as a single term,
+	 * the documents are created again from their stored values, the way _indexCustom creates them, so
+	 * they keep the term vectors and the fields added by embed
+	 */
+	private void migrateCustomKey(String id, IndexWriter writer) throws IOException, PageException {
+		Map<String, Document> docs = new LinkedHashMap<String, Document>();
+		DirectoryReader reader = DirectoryReader.open(writer);
+		try {
+			Bits liveDocs = MultiBits.getLiveDocs(reader);
+			StoredFields storedFields = reader.storedFields();
+			Document doc;
+			String key, contents;
+			for (int i = 0; i < reader.maxDoc(); i++) {
+				if (liveDocs != null && !liveDocs.get(i))
+					continue;
+				doc = storedFields.document(i);
+				key = doc.get("key");
+				if (key == null)
+					continue;
+				contents = doc.get("contents");
+				docs.put(key, CustomDocument.getDocument(doc.get("title"), key, contents == null ? "" : contents,
+						doc.get("url"), doc.get("custom1"), doc.get("custom2"), doc.get("custom3"), doc.get("custom4")));
+			}
+		} finally {
+			closeEL(reader);
+		}
+		// also drops the field schema, so "key" can change from a tokenized to a single term field
+		writer.deleteAll();
+		for (Document doc: docs.values()) {
+			writer.addDocument(embed(doc, id));
+		}
+		log.log(Log.LEVEL_INFO, "Collection:" + getName(),
+				"migrated [" + docs.size() + "] documents of index [" + id + "] to updatable keys");
+	}
+
+	private static String getCommitData(IndexWriter writer, String name) {
+		Iterable<Entry<String, String>> data = writer.getLiveCommitData();
+		if (data != null) {
+			for (Entry<String, String> e: data) {
+				if (name.equals(e.getKey()))
+					return e.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static void setCommitData(IndexWriter writer, String name, String value) {
+		Map<String, String> map = new HashMap<String, String>();
+		Iterable<Entry<String, String>> data = writer.getLiveCommitData();
+		if (data != null) {
+			for (Entry<String, String> e: data) {
+				map.put(e.getKey(), e.getValue());
+			}
+		}
+		map.put(name, value);
+		writer.setLiveCommitData(map.entrySet());
 	}
 
 	private String getRow(Object column, int row) {
@@ -562,6 +777,7 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		for (int i = 0; i < indexes.length; i++) {
 			count += getDocumentCount(indexes[i].getId());
 		}
+		closeLuceneIndexes();
 		engine.getResourceUtil().removeChildrenSilent(collectionDir);
 		return new IndexResultImpl(count, 0, 0);
 	}
@@ -573,6 +789,13 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		for (int i = 0; i < indexes.length; i++) {
 			count += getDocumentCount(indexes[i].getId());
 		}
+		closeLuceneIndexes();
+		synchronized (this) {
+			if (searchExecutor != null) {
+				searchExecutor.shutdown();
+				searchExecutor = null;
+			}
+		}
 		engine.getResourceUtil().removeSilent(collectionDir, true);
 		return new IndexResultImpl(count, 0, 0);
 	}
@@ -580,7 +803,9 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 	@Override
 	protected IndexResult _deleteIndex(String id) throws SearchException {
 		int count = getDocumentCount(id);
+		closeLuceneIndex(id);
 		engine.getResourceUtil().removeSilent(_getIndexDirectory(id, true), true);
+		_removeSpellDirectories(id, 0);
 		return new IndexResultImpl(count, 0, 0);
 	}
 
@@ -590,27 +815,54 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		return _search(data, criteria, language, type, 1, -1, categoryTree, category);
 	}
 
-	// Helper method to determine which index a document belongs to
-	private String determineDocumentIndex(Document doc, List<String> indexIds) {
-		// You'll need to store index ID in your documents at index time
-		// Or use another identifier to determine which index a document came from
-		String storedIndexId = doc.get("indexId");
-		if (storedIndexId != null && indexIds.contains(storedIndexId)) {
-			return storedIndexId;
+	@Override
+	public SearchResulItem[] _search(SearchData data, String criteria, String language, short type, final int startrow,
+			final int maxrow, String categoryTree, String[] category) throws SearchException {
+		SearchResultPage page = _searchPage(data, criteria, language, type, startrow, maxrow, categoryTree, category);
+		try {
+			// the items need to be loaded while the page is open
+			SearchResulItem[] items = page.getItems();
+			for (SearchResulItem item: items) {
+				((SearchResulItemImpl) item).getContext();
+			}
+			return items;
+		} finally {
+			page.close();
 		}
-		// Fallback to first index if can't determine
-		return indexIds.get(0);
 	}
 
 	@Override
-	public SearchResulItem[] _search(SearchData data, String criteria, String language, short type, final int startrow,
-			final int maxrow, String categoryTree, String[] category) throws SearchException {
+	protected SearchResultPage _searchPage(SearchData data, String criteria, String language, short type,
+			final int startrow, final int maxrow, String categoryTree, String[] category) throws SearchException {
+		SearchResultPage page = null;
 		try {
+			// cursor, sort and facets are set on SearchDataImpl by Java callers, cfsearch only passes them on
+			// with a core that supports them (see README)
+			SearchDataImpl sdi = data instanceof SearchDataImpl ? (SearchDataImpl) data : null;
+			// a cursor from a previous page replaces startrow
+			String cursor = sdi != null ? sdi.getCursor() : null;
+			String sortAttr = sdi != null ? sdi.getSort() : null;
+			String facetsAttr = sdi != null ? sdi.getFacets() : null;
+			if (AddionalAttrsHelper.hasSearchAttributes()) {
+				cursor = AddionalAttrsHelper.getCursor(cursor);
+				sortAttr = AddionalAttrsHelper.getSort(sortAttr);
+				facetsAttr = AddionalAttrsHelper.getFacets(facetsAttr);
+			}
+			// results are ordered by score unless a sort is given
+			Sort sort = SearchSort.toSort(sortAttr);
+			String searchIdentity = type + ":" + criteria + ":" + categoryTree + ":"
+					+ (category == null ? "" : String.join(",", category)) + ":" + sort;
+			ScoreDoc after = SearchCursor.decode(cursor, searchIdentity);
+			if (sort != null && !(after instanceof FieldDoc))
+				after = null;
+			String[] facets = toFacets(facetsAttr);
+			Map<String, Map<String, Integer>> facetCounts = null;
+			int offset = after == null ? Math.max(0, startrow - 1) : 0;
+			int totalHits = 0;
+			String nextCursor = null;
+
 			Analyzer analyzer = SearchUtil.getAnalyzer(language);
 			Query query = null;
-			Op op = null;
-
-			org.lucee.extension.search.lucene.query.QueryParser queryParser = new org.lucee.extension.search.lucene.query.QueryParser();
 
 			// addional attributes — read from core's AddionalAttrs thread-local via reflection
 			int contextBytes = AddionalAttrsHelper.getContextBytes(1000);
@@ -621,27 +873,25 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 			HTMLFormatterWithScore formatter = null;
 
-			// type="explicit" — native Lucene QueryParser syntax, bypass Verity parser
-			if (type == SEARCH_TYPE_EXPLICIT) {
-				if ("*".equals(criteria)) {
-					query = new MatchAllDocsQuery();
-				} else {
-					query = new MultiFieldQueryParser(new String[] { "contents", "filename" }, analyzer).parse(criteria);
-					formatter = new HTMLFormatterWithScore(contextHighlightBegin, contextHighlightEnd);
-				}
-			}
-			// type="simple" (default) — Verity-compatible parser
-			else if ("*".equals(criteria)) {
-				query = new MatchAllDocsQuery();
-			} else {
-				op = queryParser.parseOp(criteria);
-				if (op == null)
-					criteria = "*";
-				else
-					criteria = op.toString();
+			// parsing and analyzing the same criteria always gives the same query, so it is cached
+			String rawCriteria = criteria;
+			String cacheKey = QueryCache.toKey(criteria, type, language, mode);
+			QueryCache.Entry parsed = queryCache.get(cacheKey);
+			if (parsed == null) {
+				parsed = parse(criteria, type, analyzer);
+				queryCache.put(cacheKey, parsed);
 			}
+			criteria = parsed.getCriteria();
 
-			if (query == null && !"*".equals(criteria)) {
+			if (!parsed.isFullText()) {
+				query = parsed.getQuery();
+			}
+			else if (type == SEARCH_TYPE_EXPLICIT) {
+				query = parsed.getQuery();
+				formatter = new HTMLFormatterWithScore(contextHighlightBegin, contextHighlightEnd);
+			}
+			else {
+				Query keywordQuery = parsed.getQuery();
 				// Add vector search if enabled and service is available
 				if (getEmbeddingService() != null) {
 					try {
@@ -656,7 +906,6 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 						if (mode == MODE_HYBRID) {
 
-							Query keywordQuery = new MultiFieldQueryParser(new String[] { "contents", "filename" }, analyzer).parse(criteria);
 							// Combine queries for hybrid search
 							BooleanQuery.Builder bqBuilder = new BooleanQuery.Builder();
 							BoostQuery boostedKeywordQuery = new BoostQuery(keywordQuery, keywordWeight);
@@ -676,11 +925,12 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 						// Log error but continue with keyword search
 						log.log(Log.LEVEL_ERROR, "Collection:" + getName(),
 								"Error in vector search: " + e.getMessage() + " - Falling back to keyword search", e);
+						query = keywordQuery;
 					}
 				}
 
 				else {
-					query = new MultiFieldQueryParser(new String[] { "contents", "filename" }, analyzer).parse(criteria);
+					query = keywordQuery;
 				}
 
 				formatter = new HTMLFormatterWithScore(contextHighlightBegin, contextHighlightEnd);
@@ -688,22 +938,25 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 			Resource[] files = _getIndexDirectories();
 
 			if (files == null)
-				return new SearchResulItem[0];
+				return new SearchResultPage(new SearchResulItem[0], 0, null);
 			ArrayList<SearchResulItem> list = new ArrayList<SearchResulItem>();
 			ArrayList<String> spellCheckIndex = spellcheck ? new ArrayList<String>() : null;
-			// Create a list to hold all valid readers
+			// Create a list to hold all valid readers, the searchers are acquired from the long living index
+			// handles and need to be released again
 			List<IndexReader> readers = new ArrayList<>();
+			List<IndexSearcher> searchers = new ArrayList<>();
+			List<LuceneIndex> handles = new ArrayList<>();
 			List<String> indexIds = new ArrayList<>();
+			IndexReader multiReader = null;
 			try {
 				// create the readers
 				for (int i = 0; i < files.length; i++) {
-					if (removeCorrupt(files[i]))
-						continue;
-
-					String strFile = files[i].toString();
+					// only index directories, spell directories (also the ones in progress) are skipped
 					SearchIndex si = indexes.get(files[i].getName());
 					if (si == null)
 						continue;
+					if (removeCorrupt(files[i]))
+						continue;
 
 					// Check category filters
 					String ct = si.getCategoryTree();
@@ -715,11 +968,14 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 						continue;
 
 					String id = files[i].getName();
-					data.addRecordsSearched(_countDocs(strFile));
 
 					// Add this reader and ID to our lists
-					IndexReader reader = _getReader(id, false);
-					readers.add(reader);
+					LuceneIndex li = getLuceneIndex(id);
+					IndexSearcher is = li.acquire();
+					handles.add(li);
+					searchers.add(is);
+					data.addRecordsSearched(is.getIndexReader().numDocs());
+					readers.add(is.getIndexReader());
 					indexIds.add(id);
 
 					if (spellcheck)
@@ -730,105 +986,166 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 				if (!readers.isEmpty()) {
 					// Combine all readers into one MultiReader
 					IndexReader reader;
+					IndexSearcher searcher;
 					if (readers.size() == 1) {
 						reader = readers.get(0);
+						searcher = searchers.get(0);
 					} else {
-						reader = new MultiReader(readers.toArray(new IndexReader[0]), false);
+						reader = multiReader = new MultiReader(readers.toArray(new IndexReader[0]), false);
+						searcher = new IndexSearcher(reader, getSearchExecutor());
 					}
-
-					IndexSearcher searcher = new IndexSearcher(reader);
-
-					// Perform the search once across all indexes
-					if (query == null && "*".equals(criteria)) {
-						// Handle wildcard search
-						int len = reader.numDocs();
-						for (int y = 0; y < len && (maxrow == -1 || y < maxrow); y++) {
-							Document doc = reader.document(y);
-							// Need to determine which index this doc came from
-							String indexId = determineDocumentIndex(doc, indexIds);
-
-							SearchIndex si = indexes.get(indexId);
-							String ct = si != null ? si.getCategoryTree() : null;
-							String c = si != null ? engine.getListUtil().toList(si.getCategories(), ",") : null;
-
-							list.add(createSearchResulItem(query, formatter, doc, indexId, 1, ct, c, contextPassages,
-									contextPassageLength, contextBytes));
+					// the index a hit belongs to follows from the sub reader the doc number falls into
+					int[] docStarts = new int[readers.size()];
+					for (int i = 1; i < docStarts.length; i++) {
+						docStarts[i] = docStarts[i - 1] + readers.get(i - 1).maxDoc();
+					}
+					// the items only load the stored fields when they are written to the result
+					StoredFields storedFields = reader.storedFields();
+					final Query q = query;
+					final HTMLFormatterWithScore f = formatter;
+					final String crit = criteria;
+					final IndexSearcher s = searcher;
+					LuceneSearchResulItem.ContextFactory contextFactory = null;
+					if (contextBytes > 0 && contextPassages > 0) {
+						if (mode == MODE_VECTOR && q != null) {
+							// the keywords are analyzed once for all hits
+							KeywordMatcher matcher = new KeywordMatcher(analyzer, crit);
+							contextFactory = (doc, contents, sentences) -> createVectorContext(matcher, contents,
+									sentences, contextPassages, contextPassageLength, contextBytes);
+						} else {
+							contextFactory = (doc, contents, sentences) -> createContext(s, analyzer, doc, q, f,
+									contents, sentences, contextPassages, contextPassageLength, contextBytes);
 						}
-					} else {
-						// Normal search
-						int topN = maxrow > -1 ? Math.min(startrow + maxrow, reader.numDocs()) : reader.numDocs();
-						topN = Math.max(1, topN);
-						TopDocs topDocs = searcher.search(query, topN);
-						ScoreDoc[] scoreDocs = topDocs.scoreDocs;
-
-						if (mode == MODE_VECTOR) {
-							// For vector-only searches, use a different approach without QueryScorer
-							for (int y = 0; y < scoreDocs.length && (maxrow == -1 || y < maxrow); y++) {
-								Document doc = searcher.doc(scoreDocs[y].doc);
-
-								// Determine which index this doc came from
-								String indexId = determineDocumentIndex(doc, indexIds);
-
-								SearchIndex si = indexes.get(indexId);
-								String ct = si != null ? si.getCategoryTree() : null;
-								String c = si != null ? engine.getListUtil().toList(si.getCategories(), ",") : null;
+					}
 
-								// Create a special version that doesn't use the formatter/highlighter
-								list.add(createVectorSearchResultItem(doc, criteria, indexId, scoreDocs[y].score, ct, c,
-										contextPassages, contextPassageLength, contextBytes));
-							}
+					// the hits of the same request are cached as long as the same readers are searched
+					String resultKey = null;
+					String readerVersions = null;
+					ResultCache.Entry cached = null;
+					if (resultCache.isEnabled()) {
+						readerVersions = toReaderVersions(indexIds, readers);
+						if (readerVersions != null) {
+							resultKey = mode + ":" + language + ":" + offset + ":" + maxrow + ":" + cursor + ":"
+									+ (facets == null ? "" : String.join(",", facets)) + ":" + searchIdentity;
+							cached = resultCache.get(resultKey, readerVersions);
 						}
+					}
 
+					ScoreDoc[] pageDocs;
+					if (cached != null) {
+						pageDocs = cached.scoreDocs;
+						totalHits = cached.totalHits;
+						nextCursor = cached.nextCursor;
+						facetCounts = cached.facetCounts;
+					}
+					else {
+						// Perform the search once across all indexes, also "*" (MatchAllDocsQuery), only the live
+						// documents up to the end of the page are collected and only the ones on the page are loaded, one
+						// more tells whether there is a next page
+						int topN = maxrow > -1 ? (int) Math.min(offset + maxrow + 1L, reader.numDocs())
+								: reader.numDocs();
+						topN = Math.max(1, topN);
+						// categories are applied as filter, they do not change the score and the searcher caches them
+						Query searchQuery = query;
+						Query categoryFilter = toCategoryFilter(categoryTree, category);
+						if (categoryFilter != null) {
+							searchQuery = new BooleanQuery.Builder().add(query, BooleanClause.Occur.MUST)
+									.add(categoryFilter, BooleanClause.Occur.FILTER).build();
+						}
+						TopDocs topDocs;
+						if (facets == null) {
+							if (sort == null)
+								topDocs = after == null ? searcher.search(searchQuery, topN)
+										: searcher.searchAfter(after, searchQuery, topN);
+							else
+								// sorted by the doc values, the scores are still computed for the result
+								topDocs = after == null ? searcher.search(searchQuery, topN, sort, true)
+										: searcher.searchAfter(after, searchQuery, topN, sort, true);
+						}
 						else {
-							// For keyword and hybrid/keyword searches, use the existing approach with
-							// highlighting
-							for (int y = 0; y < scoreDocs.length && (maxrow == -1 || y < maxrow); y++) {
-								Document doc = searcher.doc(scoreDocs[y].doc);
-
-								// Determine which index this doc came from
-								String indexId = determineDocumentIndex(doc, indexIds);
-
-								SearchIndex si = indexes.get(indexId);
-								String ct = si != null ? si.getCategoryTree() : null;
-								String c = si != null ? engine.getListUtil().toList(si.getCategories(), ",") : null;
-
-								list.add(createSearchResulItem(query, formatter, doc, indexId, scoreDocs[y].score, ct,
-										c, contextPassages, contextPassageLength, contextBytes));
-							}
+							// the facets are counted in the same pass over the hits
+							FacetsCollectorManager.FacetsResult fr;
+							if (sort == null)
+								fr = after == null
+										? FacetsCollectorManager.search(searcher, searchQuery, topN, new FacetsCollectorManager())
+										: FacetsCollectorManager.searchAfter(searcher, after, searchQuery, topN,
+												new FacetsCollectorManager());
+							else
+								fr = after == null
+										? FacetsCollectorManager.search(searcher, searchQuery, topN, sort, true,
+												new FacetsCollectorManager())
+										: FacetsCollectorManager.searchAfter(searcher, after, searchQuery, topN, sort, true,
+												new FacetsCollectorManager());
+							topDocs = fr.topDocs();
+							facetCounts = countFacets(fr.facetsCollector(), facets, handles, readers);
 						}
+						ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+						// beyond the collector threshold the total is only a lower bound, counting is cheap (for "*"
+						// it is the number of live documents)
+						totalHits = (int) Math.min(Integer.MAX_VALUE,
+								topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO ? topDocs.totalHits.value
+										: searcher.count(searchQuery));
+						int end = maxrow > -1 ? Math.min(scoreDocs.length, offset + maxrow) : scoreDocs.length;
+						// a full page that is not the last one gets a cursor to continue from, after a cursor the total
+						// still counts the hits before it
+						if (maxrow > 0 && end - offset == maxrow && scoreDocs.length > end)
+							nextCursor = SearchCursor.encode(scoreDocs[end - 1], searchIdentity);
+						pageDocs = offset < end ? Arrays.copyOfRange(scoreDocs, offset, end) : new ScoreDoc[0];
+						if (resultKey != null)
+							resultCache.put(resultKey,
+									new ResultCache.Entry(readerVersions, pageDocs, totalHits, nextCursor, facetCounts));
 					}
-				}
 
-			} finally {
-				// Close all readers
-				for (IndexReader reader : readers) {
-					close(reader);
+					// with a search executor the rows of the page are loaded and highlighted in parallel
+					ExecutorService executor = contextFactory != null && pageDocs.length > 1 ? getSearchExecutor() : null;
+					for (ScoreDoc sd: pageDocs) {
+						// StoredFields are not thread safe, rows loaded in parallel get their own
+						list.add(createSearchResulItem(executor == null ? storedFields : reader.storedFields(), sd.doc,
+								sd.score, docStarts, indexIds, contextFactory));
+					}
+					if (executor != null)
+						load(list, executor);
 				}
+
+			} catch (Exception e) {
+				releaseEL(multiReader, handles, searchers);
+				throw e;
 			}
+			// the items read from the searchers when they are written, so the page releases them
+			final IndexReader mr = multiReader;
+			page = new SearchResultPage(list.toArray(new SearchResulItem[list.size()]), totalHits, nextCursor,
+					() -> releaseEL(mr, handles, searchers));
+			page.setFacetCounts(facetCounts);
 
 			// spellcheck — skip when type=explicit (no Verity parser terms to check)
-			if (spellcheck && data != null && data.getSuggestionMax() >= list.size()
+			if (spellcheck && data != null && data.getSuggestionMax() >= totalHits
 					&& type != SEARCH_TYPE_EXPLICIT) {
 				Map<String, SuggestionItem> suggestions = data.getSuggestion();
 				Iterator<String> it = spellCheckIndex.iterator();
 				String id;
-				Literal[] literals = queryParser.getLiteralSearchedTerms();
-				String[] strLiterals = queryParser.getStringSearchedTerms();
+				String[] strLiterals = parsed.getTerms();
+				// the parsed tree of the cache is shared, suggestions are set on a tree of this search
+				Op op = null;
+				Literal[] literals = null;
 				boolean setSuggestionQuery = false;
 
 				while (it.hasNext()) {
 					id = it.next();
 					SuggestionItemImpl si;
-					SpellChecker sc = null;
-					FSDirectory siDir = null;
 					try {
-						siDir = FSDirectory.open(engine.getCastUtil().toFile(_getSpellDirectory(id)).toPath());
-						sc = new SpellChecker(siDir);
+						SpellChecker sc = getSpellChecker(id);
+						if (sc == null)
+							continue;
 
 						for (int i = 0; i < strLiterals.length; i++) {
 							int maxSuggestions = Math.min(data.getSuggestionMax(), 10);
 							String[] arr = sc.suggestSimilar(strLiterals[i], maxSuggestions);
 							if (arr.length > 0) {
+								if (literals == null) {
+									org.lucee.extension.search.lucene.query.QueryParser queryParser = new org.lucee.extension.search.lucene.query.QueryParser();
+									op = queryParser.parseOp(rawCriteria);
+									literals = queryParser.getLiteralSearchedTerms();
+								}
 								literals[i].setSuggestion(arr[0]);
 								setSuggestionQuery = true;
 
@@ -847,125 +1164,293 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 						}
 					} catch (Exception e) {
 						error(e);
-					} finally {
-						if (sc != null) try { sc.close(); } catch (Exception e) {}
-						if (siDir != null) try { siDir.close(); } catch (Exception e) {}
 					}
 				}
 				if (setSuggestionQuery) {
 					data.setSuggestionQuery(op.toString());
 				}
 			}
-			// list.sort((item1, item2) -> Float.compare(item2.getScore(),
-			// item1.getScore()));
-
-			// the real removal of maxrow only can happen after we have collected results
-			// from all indexes, because we want only the result with the best scores
-
-			// remove start rows
-			if (startrow > 1) {
-				int start = startrow;
-				while (start > 1 && !list.isEmpty()) {
-					list.remove(0);
-					start--;
+			return page;
+
+		} catch (Exception e) {
+			if (page != null)
+				page.close();
+			throw CommonUtil.toSearchException(e);
+		}
+	}
+
+	/**
+	 * the facet dimensions requested, a list of dimensions or true for all of them
+	 * 
+	 * @return dimensions or null if no facets are requested
+	 */
+	private static String[] toFacets(String facets) throws SearchException {
+		if (Util.isEmpty(facets, true))
+			return null;
+		facets = facets.trim();
+		if ("false".equalsIgnoreCase(facets) || "no".equalsIgnoreCase(facets))
+			return null;
+		if ("true".equalsIgnoreCase(facets) || "yes".equalsIgnoreCase(facets) || "all".equalsIgnoreCase(facets))
+			return FieldUtil.FACETS;
+		List<String> list = new ArrayList<>();
+		outer: for (String facet: facets.split(",")) {
+			facet = facet.trim();
+			if (facet.isEmpty())
+				continue;
+			for (String dim: FieldUtil.FACETS) {
+				if (dim.equalsIgnoreCase(facet)) {
+					if (!list.contains(dim))
+						list.add(dim);
+					continue outer;
 				}
 			}
+			throw new SearchException("invalid facet [" + facet + "], valid facets are ["
+					+ String.join(", ", FieldUtil.FACETS) + "]");
+		}
+		return list.isEmpty() ? null : list.toArray(new String[list.size()]);
+	}
 
-			// remove max rows
-			int size = list.size();
-			while (maxrow >= 0 && maxrow < size) {
-				list.remove(--size);
+	/**
+	 * counts the hits collected per facet value. The facet state is kept per index, so the hits are
+	 * counted per index; the leaves of a MultiReader are the leaves of the index readers.
+	 * 
+	 * @return number of hits per dimension and value, the values ordered by count
+	 */
+	private Map<String, Map<String, Integer>> countFacets(FacetsCollector fc, String[] facets, List<LuceneIndex> handles,
+			List<IndexReader> readers) throws IOException {
+		Map<LeafReader, LeafReaderContext> leaves = new IdentityHashMap<>();
+		Map<LeafReader, Integer> owners = new IdentityHashMap<>();
+		for (int i = 0; i < readers.size(); i++) {
+			for (LeafReaderContext leaf: readers.get(i).leaves()) {
+				leaves.put(leaf.reader(), leaf);
+				owners.put(leaf.reader(), i);
 			}
+		}
+		List<List<MatchingDocs>> perIndex = new ArrayList<>(readers.size());
+		for (int i = 0; i < readers.size(); i++) {
+			perIndex.add(new ArrayList<>());
+		}
+		for (MatchingDocs md: fc.getMatchingDocs()) {
+			LeafReader lr = md.context.reader();
+			perIndex.get(owners.get(lr)).add(new MatchingDocs(leaves.get(lr), md.bits, md.totalHits, md.scores));
+		}
 
-			return list.toArray(new SearchResulItem[list.size()]);
+		Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+		for (String dim: facets) {
+			counts.put(dim, new HashMap<>());
+		}
+		for (int i = 0; i < readers.size(); i++) {
+			List<MatchingDocs> docs = perIndex.get(i);
+			if (docs.isEmpty())
+				continue;
+			SortedSetDocValuesReaderState state = handles.get(i).getFacetsState(readers.get(i));
+			if (state == null)
+				continue;
+			Facets f = new SortedSetDocValuesFacetCounts(state, new IndexHits(docs));
+			Set<String> dims = new HashSet<>();
+			for (String dim: state.getDims()) {
+				dims.add(dim);
+			}
+			for (String dim: facets) {
+				if (dims.contains(dim))
+					countFacets(f, dim, new String[0], counts.get(dim));
+			}
+		}
 
-		} catch (Exception e) {
-			throw CommonUtil.toSearchException(e);
+		// highest counts first, values with the same count by name
+		Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+		for (Entry<String, Map<String, Integer>> e: counts.entrySet()) {
+			List<Entry<String, Integer>> values = new ArrayList<>(e.getValue().entrySet());
+			values.sort(Entry.<String, Integer>comparingByValue().reversed().thenComparing(Entry.comparingByKey()));
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			for (Entry<String, Integer> v: values) {
+				if (facetLimit > 0 && sorted.size() >= facetLimit)
+					break;
+				sorted.put(v.getKey(), v.getValue());
+			}
+			result.put(e.getKey(), sorted);
 		}
+		return result;
 	}
 
-	private boolean removeCorrupt(Resource dir) {
-		if (engine.getResourceUtil().isEmptyFile(dir)) {
-			engine.getResourceUtil().removeSilent(dir, true);
-			return true;
+	/**
+	 * adds the counts of the children of the path, the levels of a hierarchical dimension are added as
+	 * path separated with "/"
+	 */
+	private static void countFacets(Facets f, String dim, String[] path, Map<String, Integer> counts)
+			throws IOException {
+		FacetResult fr = f.getAllChildren(dim, path);
+		if (fr == null)
+			return;
+		boolean hierarchical = FieldUtil.FACETS_CONFIG.getDimConfig(dim).hierarchical;
+		for (LabelAndValue lv: fr.labelValues) {
+			if (!hierarchical) {
+				counts.merge(lv.label, lv.value.intValue(), Integer::sum);
+				continue;
+			}
+			String[] child = Arrays.copyOf(path, path.length + 1);
+			child[path.length] = lv.label;
+			counts.merge(String.join("/", child), lv.value.intValue(), Integer::sum);
+			countFacets(f, dim, child, counts);
 		}
-		return false;
 	}
 
-	private static SearchResulItem createSearchResulItem(Query query, Formatter formatter, Document doc, String name,
-			float score, String ct, String c, int contextPassages, int contextPassageLength, int contextBytes)
-			throws IOException, InvalidTokenOffsetsException {
+	/**
+	 * hits of a single index, mapped to the leaves of its reader
+	 */
+	private static final class IndexHits extends FacetsCollector {
+		private final List<MatchingDocs> docs;
 
-		String summary = doc.get("summary");
-		String contents = doc.get("contents");
+		private IndexHits(List<MatchingDocs> docs) {
+			this.docs = docs;
+		}
 
-		Object contextSummary;
-		if (contextBytes > 0 && contextPassages > 0) {
-			// Extract keyword query from hybrid query if necessary
-			Query queryForHighlighting = extractKeywordQueryFromHybrid(query);
+		@Override
+		public List<MatchingDocs> getMatchingDocs() {
+			return docs;
+		}
+	}
 
-			contextSummary = new TextCollection(contents, TextHandler.findBestTexts(queryForHighlighting, formatter,
-					contents, contextPassages, contextPassageLength), "...\n", contextBytes);
+	/**
+	 * loads the items and creates their context with the executor, returns when all are done
+	 */
+	private static void load(List<SearchResulItem> items, ExecutorService executor) throws Exception {
+		List<Future<Object>> futures = new ArrayList<>(items.size());
+		for (SearchResulItem item: items) {
+			futures.add(executor.submit(((SearchResulItemImpl) item)::getContext));
+		}
+		try {
+			for (Future<Object> f: futures) {
+				f.get();
+			}
+		} catch (ExecutionException e) {
+			for (Future<Object> f: futures) {
+				f.cancel(true);
+			}
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		}
+	}
 
-		} else {
-			contextSummary = "";
+	/**
+	 * identifies the point in time of the readers searched, null if a reader does not tell its version
+	 */
+	private static String toReaderVersions(List<String> indexIds, List<IndexReader> readers) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < readers.size(); i++) {
+			if (!(readers.get(i) instanceof DirectoryReader))
+				return null;
+			sb.append(indexIds.get(i)).append('@').append(((DirectoryReader) readers.get(i)).getVersion()).append(';');
 		}
-		return new SearchResulItemImpl(name, doc.get("title"), score, doc.get("key"), doc.get("url"), summary,
-				contextSummary, contents, ct, c, doc.get("custom1"), doc.get("custom2"), doc.get("custom3"),
-				doc.get("custom4"), doc.get("mime-type"), doc.get("author"), doc.get("size"));
+		return sb.toString();
 	}
 
-	private SearchResulItem createVectorSearchResultItem(Document doc, String criteria, String name, final float score,
-			String ct, String c, int contextPassages, int contextPassageLength, int contextBytes) {
+	private void releaseEL(IndexReader multiReader, List<LuceneIndex> handles, List<IndexSearcher> searchers) {
+		// the MultiReader does not own the sub readers, closing it only gives back its references
+		closeEL(multiReader);
+		// give the searchers back to their index
+		for (int i = 0; i < searchers.size(); i++) {
+			releaseEL(handles.get(i), searchers.get(i));
+		}
+	}
 
-		String summary = doc.get("summary");
-		String contents = doc.get("contents");
+	private static QueryCache.Entry parse(String criteria, short type, Analyzer analyzer) throws ParseException {
+		String[] noTerms = new String[0];
+		// type="explicit" — native Lucene QueryParser syntax, bypass Verity parser
+		if (type == SEARCH_TYPE_EXPLICIT) {
+			if ("*".equals(criteria))
+				return new QueryCache.Entry(new MatchAllDocsQuery(), criteria, noTerms, false);
+			return new QueryCache.Entry(
+					new MultiFieldQueryParser(new String[] { "contents", "filename" }, analyzer).parse(criteria), criteria,
+					noTerms, true);
+		}
+		// type="simple" (default) — Verity-compatible parser
+		if (!"*".equals(criteria)) {
+			org.lucee.extension.search.lucene.query.QueryParser queryParser = new org.lucee.extension.search.lucene.query.QueryParser();
+			Op op = queryParser.parseOp(criteria);
+			// the parsed tree is compiled directly, no need to parse its string form again
+			if (op != null)
+				return new QueryCache.Entry(new QueryCompiler(analyzer, "contents", "filename").compile(op), op.toString(),
+						queryParser.getStringSearchedTerms(), true);
+		}
+		// nothing left to search for, same as "*"
+		return new QueryCache.Entry(new MatchAllDocsQuery(), "*", noTerms, false);
+	}
 
-		Object contextSummary;
-		if (contextBytes > 0 && contextPassages > 0 && contents != null) {
-			// Extract keywords from the search criteria (assuming criteria is available
-			// here)
-			// Remove common words like "the", "and", "of", etc.
-			String[] keywords = criteria.toLowerCase().split("\\s+");
-			Set<String> stopWords = new HashSet<>(Arrays.asList("the", "a", "an", "and", "or", "but", "is", "in", "on",
-					"at", "to", "for", "with", "by", "about", "as", "of", "this", "that"));
-
-			List<String> significantKeywords = new ArrayList<>();
-			for (String keyword : keywords) {
-				if (keyword.length() > 2 && !stopWords.contains(keyword)) {
-					significantKeywords.add(keyword);
-				}
-			}
+	@Override
+	public Struct getStatistics() {
+		Struct sct = super.getStatistics();
+		sct.setEL("queryCacheHits", Double.valueOf(queryCache.getHits()));
+		sct.setEL("queryCacheMisses", Double.valueOf(queryCache.getMisses()));
+		sct.setEL("queryCacheSize", Double.valueOf(queryCache.size()));
+		sct.setEL("resultCacheHits", Double.valueOf(resultCache.getHits()));
+		sct.setEL("resultCacheMisses", Double.valueOf(resultCache.getMisses()));
+		sct.setEL("resultCacheSize", Double.valueOf(resultCache.size()));
+		return sct;
+	}
 
+	private boolean removeCorrupt(Resource dir) {
+		if (engine.getResourceUtil().isEmptyFile(dir)) {
+			closeLuceneIndex(dir.getName());
+			engine.getResourceUtil().removeSilent(dir, true);
+			return true;
+		}
+		return false;
+	}
+
+	private SearchResulItem createSearchResulItem(StoredFields storedFields, int doc, float score, int[] docStarts,
+			List<String> indexIds, LuceneSearchResulItem.ContextFactory contextFactory) {
+		String indexId = indexIds.get(ReaderUtil.subIndex(doc, docStarts));
+		SearchIndex si = indexes.get(indexId);
+		String ct = si != null ? si.getCategoryTree() : null;
+		String c = si != null ? engine.getListUtil().toList(si.getCategories(), ",") : null;
+		return new LuceneSearchResulItem(storedFields, doc, indexId, score, ct, c, contextFactory);
+	}
+
+	private static Object createContext(IndexSearcher searcher, Analyzer analyzer, int doc, Query query,
+			HTMLFormatterWithScore formatter, String contents, int[] sentences, int contextPassages,
+			int contextPassageLength, int contextBytes)
+			throws IOException, InvalidTokenOffsetsException {
+		// Extract keyword query from hybrid query if necessary
+		Query queryForHighlighting = extractKeywordQueryFromHybrid(query);
+
+		// the matches are located with the offsets of the term vectors, documents without them (URL
+		// indexes) are analyzed again
+		List<TextHandler.ScoredParagraph> texts;
+		if (contents != null && formatter != null && OffsetHighlighter.hasOffsets(searcher.getIndexReader(), doc))
+			texts = OffsetHighlighter.findBestTexts(searcher, analyzer, doc, queryForHighlighting, formatter,
+					contents, sentences, contextPassages, contextPassageLength);
+		else
+			texts = TextHandler.findBestTexts(analyzer, queryForHighlighting, formatter, contents, sentences,
+					contextPassages, contextPassageLength, contextBytes);
+		return new TextCollection(contents, texts, "...\n", contextBytes);
+	}
+
+	private static Object createVectorContext(KeywordMatcher matcher, String contents, int[] sentences,
+			int contextPassages, int contextPassageLength, int contextBytes) throws IOException {
+		Object contextSummary;
+		if (contents != null) {
 			// Create simple text passages and score them based on keyword occurrences
 			TextSplitter splitter = new TextSplitter(contextPassageLength);
-			List<Text> texts = splitter.split(contents);
+			List<Text> texts = splitter.split(contents, sentences);
 
 			// Create a list to store scored paragraphs
 			List<TextHandler.ScoredParagraph> scoredParagraphs = new ArrayList<>();
 
 			// Score and highlight each paragraph
+			StringBuilder highlighted = new StringBuilder();
 			for (int i = 0; i < texts.size(); i++) {
 				Text text = texts.get(i);
-				String paragraph = text.text.toLowerCase();
 
-				// Calculate score based on keyword occurrences
-				float paragraphScore = 0.0f;
-				for (String keyword : significantKeywords) {
-					int count = countOccurrences(paragraph, keyword);
-					paragraphScore += count;
-				}
+				// Calculate score based on keyword occurrences, they are highlighted in the same pass
+				highlighted.setLength(0);
+				float paragraphScore = matcher.highlight(text.text, highlighted);
 
 				// Only include paragraphs with matches or if we don't have enough yet
 				if (paragraphScore > 0 || scoredParagraphs.size() < contextPassages) {
-					// Create a simple highlighted version
-					String highlighted = text.text;
-					for (String keyword : significantKeywords) {
-						highlighted = highlightKeyword(highlighted, keyword);
-					}
-
 					scoredParagraphs.add(new TextHandler.ScoredParagraph(text, // original Text object
-							highlighted, // highlighted version
+							paragraphScore > 0 ? highlighted.toString() : text.text, // highlighted version
 							paragraphScore, // calculated score
 							i // original index in the list
 					));
@@ -988,47 +1473,7 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		} else {
 			contextSummary = "";
 		}
-
-		return new SearchResulItemImpl(name, doc.get("title"), score, doc.get("key"), doc.get("url"), summary,
-				contextSummary, contents, ct, c, doc.get("custom1"), doc.get("custom2"), doc.get("custom3"),
-				doc.get("custom4"), doc.get("mime-type"), doc.get("author"), doc.get("size"));
-	}
-
-	// Helper method to count keyword occurrences
-	private int countOccurrences(String text, String keyword) {
-		int count = 0;
-		int index = 0;
-		while ((index = text.indexOf(keyword, index)) != -1) {
-			count++;
-			index += keyword.length();
-		}
-		return count;
-	}
-
-	// Helper method to highlight keywords
-	private String highlightKeyword(String text, String keyword) {
-		// Case-insensitive highlighting that preserves original case
-		Pattern pattern = Pattern.compile(Pattern.quote(keyword), Pattern.CASE_INSENSITIVE);
-		Matcher matcher = pattern.matcher(text);
-		StringBuilder result = new StringBuilder();
-		int lastEnd = 0;
-
-		while (matcher.find()) {
-			// Append text before the match
-			result.append(text.substring(lastEnd, matcher.start()));
-			// Append highlighting tags with the original case of the matched text
-			result.append(HTMLFormatterWithScore.DEFAULT_PRE_TAG);
-			result.append(text.substring(matcher.start(), matcher.end()));
-			result.append(HTMLFormatterWithScore.DEFAULT_POST_TAG);
-			lastEnd = matcher.end();
-		}
-
-		// Append the remainder of the text
-		if (lastEnd < text.length()) {
-			result.append(text.substring(lastEnd));
-		}
-
-		return result.toString();
+		return contextSummary;
 	}
 
 	/**
@@ -1078,6 +1523,37 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		return query;
 	}
 
+	/**
+	 * filter for the categories indexed with the documents, documents indexed before categories were
+	 * indexed (without the category tree root) are left to the check of the categories of their index
+	 * 
+	 * @return filter or null if there is nothing to filter
+	 */
+	private static Query toCategoryFilter(String categoryTree, String[] category) {
+		BooleanQuery.Builder bq = new BooleanQuery.Builder();
+		boolean filter = false;
+		categoryTree = FieldUtil.toCategoryTree(categoryTree);
+		if (categoryTree != null && !FieldUtil.CATEGORY_TREE_ROOT.equals(categoryTree)) {
+			bq.add(new TermQuery(new Term(FieldUtil.CATEGORY_TREE, categoryTree)), BooleanClause.Occur.FILTER);
+			filter = true;
+		}
+		if (category != null && category.length > 0) {
+			BooleanQuery.Builder cq = new BooleanQuery.Builder();
+			for (String c: category) {
+				cq.add(new TermQuery(new Term(FieldUtil.CATEGORY, c)), BooleanClause.Occur.SHOULD);
+			}
+			bq.add(cq.build(), BooleanClause.Occur.FILTER);
+			filter = true;
+		}
+		if (!filter)
+			return null;
+		Query legacy = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+				.add(new TermQuery(new Term(FieldUtil.CATEGORY_TREE, FieldUtil.CATEGORY_TREE_ROOT)), BooleanClause.Occur.MUST_NOT)
+				.build();
+		return new BooleanQuery.Builder().add(bq.build(), BooleanClause.Occur.SHOULD)
+				.add(legacy, BooleanClause.Occur.SHOULD).build();
+	}
+
 	private boolean matchCategories(String[] categoryIndex, String[] categorySearch) {
 		if (categorySearch == null || categorySearch.length == 0)
 			return true;
@@ -1097,9 +1573,13 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		// return true;
 		// if(StringUtil.isEmpty(categoryTreeSearch) || categoryTreeSearch.equals("/"))
 		// return true;
-		return categoryTreeIndex.equals(categoryTreeSearch)
-				|| categoryTreeIndex.startsWith(categoryTreeSearch + "/")
-				|| "/".equals(categoryTreeSearch);
+		// both with or without leading and trailing slashes
+		categoryTreeSearch = FieldUtil.toCategoryTree(categoryTreeSearch);
+		if (categoryTreeSearch == null || FieldUtil.CATEGORY_TREE_ROOT.equals(categoryTreeSearch))
+			return true;
+		categoryTreeIndex = FieldUtil.toCategoryTree(categoryTreeIndex);
+		return categoryTreeIndex != null && (categoryTreeIndex.equals(categoryTreeSearch)
+				|| categoryTreeIndex.startsWith(categoryTreeSearch + "/"));
 	}
 
 	/**
@@ -1158,7 +1638,19 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 	private Document embed(Document doc, String id) throws IOException {
 		EmbeddingService es = getEmbeddingService();
+		// a document read back from the index already has it
+		doc.removeFields("indexId");
 		doc.add(FieldUtil.UnIndexed("indexId", id));
+		// the categories go with every document, so searches can filter on them within an index
+		SearchIndex si = getIndexDefinition(id);
+		if (si != null)
+			FieldUtil.setCategories(doc, si.getCategoryTree(), si.getCategories());
+		FieldUtil.setSortFields(doc);
+		if (storeSentences)
+			FieldUtil.setSentences(doc);
+		else
+			doc.removeFields(FieldUtil.SENTENCES);
+		doc = FieldUtil.setFacets(doc, si == null ? null : si.getCategoryTree(), si == null ? null : si.getCategories());
 		if (es != null) {
 			String contents = doc.get("contents");
 			if (contents != null) {
@@ -1255,34 +1747,157 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		return indexDir;
 	}
 
+	/**
+	 * writes to the same index directory are serialized with this token, different indexes (also of
+	 * different collections) can be written in parallel
+	 * 
+	 * @param id index id
+	 * @return lock token of the index
+	 */
+	private String getIndexToken(String id) {
+		return CommonUtil.createToken("lucene-index", _getIndexDirectory(id, false).getAbsolutePath());
+	}
+
 	private IndexWriterConfig _getConfig() throws SearchException {
-		return new IndexWriterConfig(SearchUtil.getAnalyzer(getLanguage()));
+		IndexWriterConfig config = new IndexWriterConfig(SearchUtil.getAnalyzer(getLanguage()));
+		config.setMergePolicy(_getMergePolicy());
+		config.setRAMBufferSizeMB(ramBufferSizeMB);
+		return config;
 	}
 
 	/**
-	 * get writer to id
+	 * @return merge policy based on the merge settings of the collection, settings not defined keep the
+	 *         Lucene defaults
+	 */
+	private TieredMergePolicy _getMergePolicy() {
+		TieredMergePolicy mp = new TieredMergePolicy();
+		if (mergeMaxSegmentMB > 0)
+			mp.setMaxMergedSegmentMB(mergeMaxSegmentMB);
+		if (mergeSegmentsPerTier > 0)
+			mp.setSegmentsPerTier(mergeSegmentsPerTier);
+		if (mergeFloorSegmentMB > 0)
+			mp.setFloorSegmentMB(mergeFloorSegmentMB);
+		if (mergeDeletesPctAllowed > 0)
+			mp.setDeletesPctAllowed(mergeDeletesPctAllowed);
+		return mp;
+	}
+
+	/**
+	 * checks in the background if the ratio of deleted documents of the index crossed the threshold and
+	 * if so, merges the segments with deletions away
 	 * 
-	 * @param id
+	 * @param id index id
+	 */
+	private void scheduleMaintenance(final String id) {
+		if (mergeDeletesThreshold <= 0 || !maintenancePending.add(id))
+			return;
+		try {
+			getMaintenanceExecutor().execute(() -> {
+				maintenancePending.remove(id);
+				maintain(id);
+			});
+		} catch (Exception e) {
+			maintenancePending.remove(id);
+			error(e);
+		}
+	}
+
+	private void maintain(String id) {
+		Lock lock = null;
+		try {
+			lock = readLock();
+			synchronized (getIndexToken(id)) {
+				if (!_getIndexDirectory(id, false).exists())
+					return;
+
+				double ratio;
+				LuceneIndex li = getLuceneIndex(id);
+				IndexSearcher searcher = li.acquire();
+				try {
+					IndexReader reader = searcher.getIndexReader();
+					ratio = reader.maxDoc() == 0 ? 0 : reader.numDeletedDocs() / (double) reader.maxDoc();
+				} finally {
+					li.release(searcher);
+				}
+				if (ratio < mergeDeletesThreshold)
+					return;
+
+				log.log(Log.LEVEL_INFO, "Collection:" + getName(),
+						"merge deletes of index [" + id + "], ratio of deleted documents is [" + ratio + "]");
+				try {
+					_getWriter(id, false).forceMergeDeletes();
+				} finally {
+					publishEL(id);
+				}
+			}
+		} catch (Exception e) {
+			error(e);
+		} finally {
+			if (lock != null)
+				unlock(lock);
+		}
+	}
+
+	/**
+	 * @return executor for searches of this collection or null if searches run on the calling thread
+	 */
+	private synchronized ExecutorService getSearchExecutor() {
+		if (searchThreads <= 0)
+			return null;
+		if (searchExecutor == null) {
+			final String name = "lucee-search-" + getName();
+			ThreadPoolExecutor tpe = new ThreadPoolExecutor(searchThreads, searchThreads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), r -> {
+						Thread t = new Thread(r, name);
+						t.setDaemon(true);
+						return t;
+					});
+			// an idle collection does not keep threads
+			tpe.allowCoreThreadTimeOut(true);
+			searchExecutor = tpe;
+		}
+		return searchExecutor;
+	}
+
+	private static synchronized ExecutorService getMaintenanceExecutor() {
+		if (maintenance == null) {
+			ThreadPoolExecutor tpe = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					r -> {
+						Thread t = new Thread(r, "lucee-search-maintenance");
+						t.setDaemon(true);
+						return t;
+					});
+			// the thread ends when idle, so it does not keep the classes of a reloaded or removed extension
+			// alive
+			tpe.allowCoreThreadTimeOut(true);
+			maintenance = tpe;
+		}
+		return maintenance;
+	}
+
+	/**
+	 * get the writer of the index, the writer is shared and stays open, changes done with it need to be
+	 * published with publishEL(id), or discarded with rollbackEL(id). Until then they are neither
+	 * committed nor visible to searches.
+	 * 
+	 * @param id index id
+	 * @param create remove all existing documents from the index
 	 * @return returns the Writer
-	 * @throws IOException
 	 * @throws SearchException
 	 * @throws IOException
 	 * @throws PageException
 	 */
 	private IndexWriter _getWriter(String id, boolean create) throws SearchException, IOException, PageException {
-		Resource dir = _getIndexDirectory(id, true);
-		IndexWriterConfig config = _getConfig();
-		// Set create/append mode
+		LuceneIndex li = getLuceneIndex(id);
+		li.beginWrite();
+		IndexWriter writer = li.getWriter();
+		// replaces the content of the index, like opening a writer in create mode did; changes of earlier
+		// calls are committed first, so a rollback only discards this one
 		if (create) {
-			config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
-		} else {
-			config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+			li.commit();
+			writer.deleteAll();
 		}
-		return new IndexWriter(FSDirectory.open(engine.getCastUtil().toFile(dir).toPath()), config);
-	}
-
-	private IndexReader _getReader(String id, boolean absolute) throws IOException, PageException {
-		return _getReader(_getFile(id, absolute).toPath());
+		return writer;
 	}
 
 	public static IndexReader _getReader(Path path) throws IOException {
@@ -1296,56 +1911,138 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		return DirectoryReader.open(dir);
 	}
 
-	private File _getFile(String id, boolean absolute) throws IOException, PageException {
-		Resource res = absolute ? engine.getResourceUtil().getFileResourceProvider().getResource(id)
-				: _getIndexDirectory(id, true);
-		res.getResourceProvider().read(res);
-		return engine.getCastUtil().toFile(res);
+	/**
+	 * returns the long living handle for the given index, the handle is created on first access
+	 * 
+	 * @param id index id
+	 * @return index handle
+	 * @throws IOException
+	 * @throws PageException
+	 */
+	private LuceneIndex getLuceneIndex(String id) throws IOException, PageException {
+		LuceneIndex li = luceneIndexes.get(id);
+		if (li != null)
+			return li;
+		final Path path = _getFile(id, false).toPath();
+		return luceneIndexes.computeIfAbsent(id, k -> new LuceneIndex(path, () -> {
+			try {
+				return _getConfig();
+			} catch (SearchException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}, commitInterval, commitMaxPending, refreshInterval, getSearchExecutor(), log));
 	}
 
 	/**
-	 * @return returns all existing IndexWriter
+	 * makes the changes written to an index visible for the searchers of that index
+	 * 
+	 * @param id index id
 	 */
-	private Resource[] _getIndexDirectories() {
-		Resource[] files = collectionDir.listResources(new DirectoryResourceFilter());
+	private void refreshEL(String id) {
+		LuceneIndex li = luceneIndexes.get(id);
+		if (li == null)
+			return;
+		try {
+			li.refresh();
+		} catch (Exception e) {
+			// the handle is no longer usable, it is opened again with the next search
+			error(e);
+			closeLuceneIndex(id);
+		}
+	}
 
-		return files;
+	/**
+	 * to call after changes were written to an index, commits them (batched, see commitInterval and
+	 * commitMaxPending) and makes them visible for the searchers of that index
+	 * 
+	 * @param id index id
+	 */
+	private void publishEL(String id) {
+		LuceneIndex li = luceneIndexes.get(id);
+		if (li == null)
+			return;
+		li.endWrite();
+		try {
+			li.changed();
+		} catch (Exception e) {
+			error(e);
+		}
+		refreshEL(id);
 	}
 
 	/**
-	 * @return returns all existing IndexWriter
-	 * @throws SearchException
+	 * discards the changes written to an index by a write that failed, searches keep the state before
+	 * it
+	 * 
+	 * @param id index id
 	 */
-	private IndexWriter[] _getWriters(boolean create) throws SearchException {
-		Resource[] files = _getIndexDirectories();
-		if (files == null)
-			return new IndexWriter[0];
+	private void rollbackEL(String id) {
+		LuceneIndex li = luceneIndexes.get(id);
+		if (li == null)
+			return;
+		try {
+			li.rollback();
+		} catch (Exception e) {
+			error(e);
+		}
+	}
 
-		IndexWriter[] writers = new IndexWriter[files.length];
-		for (int i = 0; i < files.length; i++) {
-			try {
-				writers[i] = _getWriter(files[i].getName(), create);
-			} catch (IOException e) {
-				error(e);
-			} catch (PageException e) {
-				error(new SearchException(e.getMessage()));
-			}
+	/**
+	 * waits until the changes written to an index are visible for its searchers
+	 * 
+	 * @param id index id
+	 */
+	private void awaitRefreshEL(String id) {
+		LuceneIndex li = luceneIndexes.get(id);
+		if (li == null)
+			return;
+		try {
+			li.awaitRefresh();
+		} catch (Exception e) {
+			error(e);
 		}
-		return writers;
 	}
 
-	private int _countDocs(String col) {
-		int totalDocs;
-		IndexReader reader = null;
+	private void releaseEL(LuceneIndex li, IndexSearcher searcher) {
+		if (li == null)
+			return;
 		try {
-			reader = _getReader(col, true);
-			totalDocs = reader.numDocs();
+			li.release(searcher);
 		} catch (Exception e) {
-			return 0;
-		} finally {
-			closeEL(reader);
+			error(e);
 		}
-		return totalDocs;
+	}
+
+	private void closeLuceneIndex(String id) {
+		LuceneIndex li = luceneIndexes.remove(id);
+		if (li != null) {
+			// a recreated index may start over with the same reader versions
+			resultCache.clear();
+			CommonUtil.closeSilently(li);
+		}
+	}
+
+	private void closeLuceneIndexes() {
+		Iterator<String> it = luceneIndexes.keySet().iterator();
+		while (it.hasNext()) {
+			closeLuceneIndex(it.next());
+		}
+	}
+
+	private File _getFile(String id, boolean absolute) throws IOException, PageException {
+		Resource res = absolute ? engine.getResourceUtil().getFileResourceProvider().getResource(id)
+				: _getIndexDirectory(id, true);
+		res.getResourceProvider().read(res);
+		return engine.getCastUtil().toFile(res);
+	}
+
+	/**
+	 * @return returns all existing IndexWriter
+	 */
+	private Resource[] _getIndexDirectories() {
+		Resource[] files = collectionDir.listResources(new DirectoryResourceFilter());
+
+		return files;
 	}
 
 	/**
@@ -1379,15 +2076,7 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		try {
 			if (!_getIndexDirectory(id, false).exists())
 				return 0;
-			IndexReader r = null;
-			int num = 0;
-			try {
-				r = _getReader(id, false);
-				num = r.numDocs();
-			} finally {
-				close(r);
-			}
-			return num;
+			return getLuceneIndex(id).getNumDocs();
 		} catch (Exception e) {
 		}
 		return 0;
@@ -1463,15 +2152,25 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		}
 	}
 
-	private Resource _createSpellDirectory(String id) {
-		Resource indexDir = collectionDir.getRealResource(id + "_" + (_getMax(true) + 1) + "_spell");
-		// print.out("create:"+indexDir);
-		indexDir.mkdirs();
-		return indexDir;
+	/**
+	 * returns the SpellChecker for the current dictionary of the index, cached with the index
+	 * 
+	 * @param id index id
+	 * @return SpellChecker or null if the index has no dictionary yet
+	 */
+	private SpellChecker getSpellChecker(String id) throws IOException, PageException {
+		LuceneIndex li = getLuceneIndex(id);
+		SpellChecker sc = li.getSpellChecker();
+		if (sc != null)
+			return sc;
+		Resource dir = _getSpellDirectory(id);
+		if (!dir.exists())
+			return null;
+		return li.getSpellChecker(engine.getCastUtil().toFile(dir).toPath());
 	}
 
 	private Resource _getSpellDirectory(String id) {
-		Resource indexDir = collectionDir.getRealResource(id + "_" + _getMax(false) + "_spell");
+		Resource indexDir = collectionDir.getRealResource(id + "_" + _getSpellNumber(id) + "_spell");
 		// print.out("get:"+indexDir);
 		return indexDir;
 	}
@@ -1480,29 +2179,36 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 		return collectionDir;
 	}
 
-	private long _getMax(boolean delete) {
-		Resource[] children = collectionDir.listResources(new SpellDirFilter());
+	/**
+	 * @param id index id
+	 * @return number of the current spell directory of the index, 0 if there is none
+	 */
+	private long _getSpellNumber(String id) {
+		Resource[] children = collectionDir.listResources(new SpellDirFilter(id));
 		long max = 0, nbr;
-		String name;
 		for (int i = 0; i < children.length; i++) {
-			name = children[i].getName();
-			name = name.substring(0, name.length() - 6);
-			nbr = engine.getCastUtil().toLongValue(name.substring(name.lastIndexOf('_') + 1), 0);
-			if (delete) {
-				try {
-					children[i].remove(true);
-					continue;
-				} catch (Throwable t) {
-					if (t instanceof ThreadDeath)
-						throw (ThreadDeath) t;
-				}
-			}
+			nbr = _getSpellNumber(id, children[i].getName());
 			if (nbr > max)
 				max = nbr;
 		}
 		return max;
 	}
 
+	private long _getSpellNumber(String id, String name) {
+		return engine.getCastUtil().toLongValue(name.substring(id.length() + 1, name.length() - 6), 0);
+	}
+
+	/**
+	 * removes the spell directories of the index older than the given one, or all when 0 is passed
+	 */
+	private void _removeSpellDirectories(String id, long current) {
+		Resource[] children = collectionDir.listResources(new SpellDirFilter(id));
+		for (int i = 0; i < children.length; i++) {
+			if (current == 0 || _getSpellNumber(id, children[i].getName()) < current)
+				engine.getResourceUtil().removeSilent(children[i], true);
+		}
+	}
+
 	private void error(Exception e) {
 		if (log == null) {
 			e.printStackTrace();
@@ -1519,9 +2225,22 @@ public final class LuceneSearchCollection extends SearchCollectionSupport {
 
 	public class SpellDirFilter implements ResourceNameFilter {
 
+		private final String prefix;
+
+		public SpellDirFilter(String id) {
+			this.prefix = id + "_";
+		}
+
 		@Override
 		public boolean accept(Resource parent, String name) {
-			return name.endsWith("_spell");
+			if (!name.startsWith(prefix) || !name.endsWith("_spell") || name.length() <= prefix.length() + 6)
+				return false;
+			// <id>_<number>_spell
+			for (int i = prefix.length(); i < name.length() - 6; i++) {
+				if (!Character.isDigit(name.charAt(i)))
+					return false;
+			}
+			return true;
 		}
 
 	}
@@ -0,0 +1,97 @@
+package org.lucee.extension.search.lucene;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.util.BytesRef;
+import org.lucee.extension.search.SearchResulItemImpl;
+import org.lucee.extension.search.lucene.docs.FieldUtil;
+import org.lucee.extension.search.lucene.highlight.TextSplitter;
+
+/**
+ * search result that only keeps the document number and the score, the stored fields are loaded
+ * the first time a value is read and the context is only created when it is read. The readers the
+ * StoredFields come from need to stay open until the item was read. Only the fields of the result
+ * columns are loaded, the contents only when a context is created from them.
+ */
+final class LuceneSearchResulItem extends SearchResulItemImpl {
+
+	interface ContextFactory {
+		/**
+		 * @param doc doc number of the hit
+		 * @param contents stored contents of the hit
+		 * @param sentences positions of the sentence ends of the contents stored at index time, null for
+		 *            documents indexed without them
+		 */
+		Object create(int doc, String contents, int[] sentences) throws Exception;
+	}
+
+	private static final Set<String> FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("title", "key",
+			"url", "summary", "custom1", "custom2", "custom3", "custom4", "mime-type", "author", "size")));
+	private static final Set<String> FIELDS_WITH_CONTENTS;
+	static {
+		Set<String> set = new HashSet<>(FIELDS);
+		set.add("contents");
+		set.add(FieldUtil.SENTENCES);
+		FIELDS_WITH_CONTENTS = Collections.unmodifiableSet(set);
+	}
+
+	private StoredFields storedFields;
+	private final int doc;
+	private final ContextFactory contextFactory;
+	private BytesRef sentences;
+
+	/**
+	 * @param storedFields stored fields of the reader the doc number belongs to
+	 * @param doc doc number
+	 * @param id id of the index the document belongs to
+	 * @param score score of the hit
+	 * @param categoryTree category tree of the index
+	 * @param category categories of the index
+	 * @param contextFactory creates the context from the contents, null for no context
+	 */
+	LuceneSearchResulItem(StoredFields storedFields, int doc, String id, float score, String categoryTree,
+			String category, ContextFactory contextFactory) {
+		super(id, score, categoryTree, category);
+		this.storedFields = storedFields;
+		this.doc = doc;
+		this.contextFactory = contextFactory;
+	}
+
+	@Override
+	protected void load() {
+		if (storedFields == null)
+			return;
+		Document d;
+		try {
+			d = storedFields.document(doc, contextFactory == null ? FIELDS : FIELDS_WITH_CONTENTS);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		storedFields = null;
+		sentences = d.getBinaryValue(FieldUtil.SENTENCES);
+		init(d.get("title"), d.get("key"), d.get("url"), d.get("summary"), d.get("contents"), d.get("custom1"),
+				d.get("custom2"), d.get("custom3"), d.get("custom4"), d.get("mime-type"), d.get("author"),
+				d.get("size"));
+	}
+
+	@Override
+	protected Object createContext() {
+		if (contextFactory == null)
+			return "";
+		try {
+			String contents = getContents();
+			return contextFactory.create(doc, contents, TextSplitter.unpack(sentences, contents));
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
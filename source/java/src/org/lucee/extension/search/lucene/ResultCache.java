@@ -0,0 +1,116 @@
+package org.lucee.extension.search.lucene;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.search.ScoreDoc;
+
+/**
+ * bounded LRU cache of the ranked hits of search pages. Doc numbers are only valid for the readers
+ * they were searched with, so every entry keeps the versions of these readers and is only used as
+ * long as a search acquires the same ones; any change that reaches the searchers invalidates it.
+ */
+final class ResultCache {
+
+	static final class Entry {
+		final String readerVersions;
+		final ScoreDoc[] scoreDocs;
+		final int totalHits;
+		final String nextCursor;
+		final Map<String, Map<String, Integer>> facetCounts;
+		final long created;
+
+		/**
+		 * @param readerVersions versions of the readers searched
+		 * @param scoreDocs hits of the page
+		 * @param totalHits number of hits of the search
+		 * @param nextCursor cursor pointing behind the page or null
+		 * @param facetCounts facet counts of the search or null
+		 */
+		Entry(String readerVersions, ScoreDoc[] scoreDocs, int totalHits, String nextCursor,
+				Map<String, Map<String, Integer>> facetCounts) {
+			this.readerVersions = readerVersions;
+			this.scoreDocs = scoreDocs;
+			this.totalHits = totalHits;
+			this.nextCursor = nextCursor;
+			this.facetCounts = facetCounts;
+			this.created = System.currentTimeMillis();
+		}
+	}
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final Map<String, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxSize max number of entries, 0 disables the cache
+	 * @param timeToLive max age of an entry in milliseconds, 0 for no limit
+	 */
+	ResultCache(final int maxSize, long timeToLive) {
+		this.maxSize = Math.max(0, maxSize);
+		this.timeToLive = Math.max(0, timeToLive);
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 6016380735416389462L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ResultCache.Entry> eldest) {
+				return size() > ResultCache.this.maxSize;
+			}
+		};
+	}
+
+	boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * @param key normalized search request
+	 * @param readerVersions versions of the readers acquired for the search
+	 * @return entry or null if there is none for the key or it was searched with other readers
+	 */
+	Entry get(String key, String readerVersions) {
+		Entry e;
+		synchronized (entries) {
+			e = entries.get(key);
+			if (e != null && (!e.readerVersions.equals(readerVersions)
+					|| (timeToLive > 0 && e.created + timeToLive < System.currentTimeMillis()))) {
+				entries.remove(key);
+				e = null;
+			}
+		}
+		if (e == null)
+			misses.increment();
+		else
+			hits.increment();
+		return e;
+	}
+
+	void put(String key, Entry entry) {
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+	}
+
+	void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+}
@@ -0,0 +1,118 @@
+package org.lucee.extension.search.lucene;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * opaque continuation token for paging with IndexSearcher.searchAfter, the token is bound to the
+ * search it was created for and ignored for any other search. Hits of a sorted search carry their sort
+ * values, so the token keeps them too.
+ */
+final class SearchCursor {
+
+	private static final String VERSION = "1";
+	private static final String VERSION_SORTED = "2";
+
+	private SearchCursor() {
+	}
+
+	/**
+	 * @param last last hit of the current page
+	 * @param search identifies the search (criteria, type, filters, sort)
+	 * @return token
+	 */
+	static String encode(ScoreDoc last, String search) {
+		String raw;
+		if (last instanceof FieldDoc) {
+			StringBuilder fields = new StringBuilder();
+			for (Object value: ((FieldDoc) last).fields) {
+				if (fields.length() > 0)
+					fields.append(',');
+				fields.append(encodeValue(value));
+			}
+			raw = VERSION_SORTED + ":" + Integer.toHexString(Float.floatToIntBits(last.score)) + ":" + last.doc + ":"
+					+ fields + ":" + Integer.toHexString(search.hashCode());
+		}
+		else {
+			raw = VERSION + ":" + Integer.toHexString(Float.floatToIntBits(last.score)) + ":" + last.doc + ":"
+					+ Integer.toHexString(search.hashCode());
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param token token created with encode
+	 * @param search identifies the search (criteria, type, filters, sort)
+	 * @return the hit to continue after (a FieldDoc for a sorted search) or null if the token is invalid
+	 *         or belongs to another search
+	 */
+	static ScoreDoc decode(String token, String search) {
+		if (token == null || token.isEmpty())
+			return null;
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", -1);
+			boolean sorted = parts.length == 5 && VERSION_SORTED.equals(parts[0]);
+			if (!sorted && (parts.length != 4 || !VERSION.equals(parts[0])))
+				return null;
+			if (!Integer.toHexString(search.hashCode()).equals(parts[parts.length - 1]))
+				return null;
+			float score = Float.intBitsToFloat(Integer.parseUnsignedInt(parts[1], 16));
+			int doc = Integer.parseInt(parts[2]);
+			if (!sorted)
+				return new ScoreDoc(doc, score);
+			String[] values = parts[3].split(",", -1);
+			Object[] fields = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				fields[i] = decodeValue(values[i]);
+			}
+			return new FieldDoc(doc, score, fields);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static String encodeValue(Object value) {
+		if (value == null)
+			return "n";
+		if (value instanceof BytesRef) {
+			BytesRef br = (BytesRef) value;
+			return "s" + Base64.getUrlEncoder().withoutPadding().encodeToString(
+					Arrays.copyOfRange(br.bytes, br.offset, br.offset + br.length));
+		}
+		if (value instanceof Long)
+			return "l" + value;
+		if (value instanceof Integer)
+			return "i" + value;
+		if (value instanceof Float)
+			return "f" + Integer.toHexString(Float.floatToIntBits((Float) value));
+		if (value instanceof Double)
+			return "d" + Long.toHexString(Double.doubleToLongBits((Double) value));
+		throw new IllegalArgumentException("unsupported sort value [" + value.getClass().getName() + "]");
+	}
+
+	private static Object decodeValue(String value) {
+		char type = value.charAt(0);
+		String v = value.substring(1);
+		switch (type) {
+		case 'n':
+			return null;
+		case 's':
+			return new BytesRef(Base64.getUrlDecoder().decode(v));
+		case 'l':
+			return Long.valueOf(v);
+		case 'i':
+			return Integer.valueOf(v);
+		case 'f':
+			return Float.intBitsToFloat(Integer.parseUnsignedInt(v, 16));
+		case 'd':
+			return Double.longBitsToDouble(Long.parseUnsignedLong(v, 16));
+		default:
+			throw new IllegalArgumentException("invalid sort value [" + value + "]");
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.lucee.extension.search.lucene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.lucee.extension.search.lucene.docs.FieldUtil;
+
+import lucee.loader.util.Util;
+import lucee.runtime.search.SearchException;
+
+/**
+ * translates the sort attribute of a search ("title asc, modified desc") into a Lucene Sort over the
+ * sort doc values of the documents. Documents without a value come last in both directions, hits that
+ * are equal on all fields are ordered by score.
+ */
+final class SearchSort {
+
+	private static final String SCORE = "score";
+
+	private SearchSort() {
+	}
+
+	/**
+	 * @param sort comma separated list of fields, each optionally followed by asc or desc
+	 * @return sort or null if the hits are sorted by score only
+	 * @throws SearchException
+	 */
+	static Sort toSort(String sort) throws SearchException {
+		if (Util.isEmpty(sort, true))
+			return null;
+		List<SortField> fields = new ArrayList<>();
+		boolean byScore = false;
+		for (String item: sort.split(",")) {
+			item = item.trim();
+			if (item.isEmpty())
+				continue;
+			String[] parts = item.split("\\s+");
+			if (parts.length > 2)
+				throw invalid(item);
+			boolean reverse = false;
+			if (parts.length == 2) {
+				if ("desc".equalsIgnoreCase(parts[1]))
+					reverse = true;
+				else if (!"asc".equalsIgnoreCase(parts[1]))
+					throw invalid(item);
+			}
+			String name = parts[0];
+			if (SCORE.equalsIgnoreCase(name)) {
+				// score is ordered descending unless asc is given explicitly
+				byScore = true;
+				fields.add(new SortField(null, SortField.Type.SCORE, parts.length == 2 && !reverse));
+				continue;
+			}
+			fields.add(toSortField(name, reverse, item));
+		}
+		if (fields.isEmpty() || (fields.size() == 1 && byScore && fields.get(0).equals(SortField.FIELD_SCORE)))
+			return null;
+		if (!byScore)
+			fields.add(SortField.FIELD_SCORE);
+		return new Sort(fields.toArray(new SortField[fields.size()]));
+	}
+
+	private static SortField toSortField(String name, boolean reverse, String item) throws SearchException {
+		for (String f: FieldUtil.SORT_TEXT) {
+			if (f.equalsIgnoreCase(name)) {
+				SortField sf = new SortField(FieldUtil.SORT_PREFIX + f, SortField.Type.STRING, reverse);
+				sf.setMissingValue(reverse ? SortField.STRING_FIRST : SortField.STRING_LAST);
+				return sf;
+			}
+		}
+		for (String f: FieldUtil.SORT_NUMERIC) {
+			if (f.equalsIgnoreCase(name)) {
+				SortField sf = new SortField(FieldUtil.SORT_PREFIX + f, SortField.Type.LONG, reverse);
+				sf.setMissingValue(reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+				return sf;
+			}
+		}
+		throw invalid(item);
+	}
+
+	private static SearchException invalid(String item) {
+		return new SearchException("invalid sort [" + item + "], valid fields are [" + SCORE + ", "
+				+ String.join(", ", FieldUtil.SORT_TEXT) + ", " + String.join(", ", FieldUtil.SORT_NUMERIC)
+				+ "] optionally followed by asc or desc");
+	}
+}
@@ -27,7 +27,7 @@ public final class CustomDocument {
 
 		Document doc = DocumentSupport.createDocument(null, content, "text/plain");
 
-		doc.add(FieldUtil.Text("key", key));
+		doc.add(FieldUtil.Keyword("key", key));
 
 		FieldUtil.setTitle(doc, title);
 		FieldUtil.setURL(doc, urlpath);
@@ -1,18 +1,92 @@
 package org.lucee.extension.search.lucene.docs;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.util.BytesRef;
+import org.lucee.extension.search.lucene.highlight.TextSplitter;
 
 import lucee.loader.util.Util;
 
 public class FieldUtil {
 
+	public static final String CATEGORY = "category";
+	public static final String CATEGORY_TREE = "categoryTree";
+	/**
+	 * category tree term every document with indexed categories has, a search for the root does not
+	 * filter
+	 */
+	public static final String CATEGORY_TREE_ROOT = "/";
+
+	/**
+	 * facet dimensions, named like the columns of the search result
+	 */
+	public static final String FACET_CATEGORY = "category";
+	public static final String FACET_CATEGORY_TREE = "categoryTree";
+	public static final String FACET_TYPE = "type";
+	public static final String FACET_AUTHOR = "author";
+	public static final String[] FACETS = new String[] { FACET_CATEGORY, FACET_CATEGORY_TREE, FACET_TYPE, FACET_AUTHOR };
+
+	/**
+	 * all dimensions go to the same doc values field, the category filter terms are indexed separately,
+	 * so no drill down terms are written
+	 */
+	public static final FacetsConfig FACETS_CONFIG = new FacetsConfig();
+
+	/**
+	 * doc values the results can be sorted by, separate fields so the schema of the stored and indexed
+	 * fields does not change. Text values are sorted case insensitive by their first characters.
+	 */
+	public static final String SORT_PREFIX = "sort.";
+	public static final String[] SORT_TEXT = new String[] { "title", "key", "url", "author", "type", "custom1",
+			"custom2", "custom3", "custom4" };
+	public static final String[] SORT_NUMERIC = new String[] { "size", "modified" };
+	private static final int SORT_MAX_LENGTH = 256;
+
+	/**
+	 * stored positions of the sentence ends of the contents, so the passages of a hit are not searched
+	 * for them at query time
+	 */
+	public static final String SENTENCES = "sentences";
+	static {
+		FACETS_CONFIG.setMultiValued(FACET_CATEGORY, true);
+		FACETS_CONFIG.setHierarchical(FACET_CATEGORY_TREE, true);
+		for (String dim: FACETS) {
+			FACETS_CONFIG.setDrillDownTermsIndexing(dim, FacetsConfig.DrillDownTermsIndexing.NONE);
+		}
+	}
+
 	public static Field UnIndexed(String name, String value) {
 		return new StoredField(name, value);
 	}
 
+	/**
+	 * indexed as a single term (not tokenized) and stored, used for identifiers like the key of a custom
+	 * document
+	 */
+	public static Field Keyword(String name, String value) {
+		return new StringField(name, value, Field.Store.YES);
+	}
+
+	/**
+	 * indexed as a single term and not stored, used for filters
+	 */
+	public static Field Filter(String name, String value) {
+		return new StringField(name, value, Field.Store.NO);
+	}
+
 	public static Field Text(String name, String value) {
 		return new TextField(name, value, Field.Store.YES);
 	}
@@ -56,6 +130,114 @@ public class FieldUtil {
 			doc.add(Text("contents", content));
 	}
 
+	/**
+	 * returns the category tree without leading and trailing slashes, so "docs/news", "/docs/news" and
+	 * "docs/news/" are the same branch, the root for an empty tree
+	 */
+	public static String toCategoryTree(String categoryTree) {
+		if (categoryTree == null)
+			return null;
+		int start = 0, end = categoryTree.length();
+		while (start < end && categoryTree.charAt(start) == '/')
+			start++;
+		while (end > start && categoryTree.charAt(end - 1) == '/')
+			end--;
+		return start == end ? CATEGORY_TREE_ROOT : categoryTree.substring(start, end);
+	}
+
+	/**
+	 * sets the categories of the index as filter terms, the category tree with all its ancestors, so a
+	 * branch is matched by a single term
+	 */
+	public static void setCategories(Document doc, String categoryTree, String[] categories) {
+		doc.removeFields(CATEGORY);
+		doc.removeFields(CATEGORY_TREE);
+		doc.add(Filter(CATEGORY_TREE, CATEGORY_TREE_ROOT));
+		categoryTree = toCategoryTree(categoryTree);
+		if (categoryTree != null && !CATEGORY_TREE_ROOT.equals(categoryTree)) {
+			for (int i = 0; i < categoryTree.length(); i++) {
+				if (categoryTree.charAt(i) == '/')
+					doc.add(Filter(CATEGORY_TREE, categoryTree.substring(0, i)));
+			}
+			doc.add(Filter(CATEGORY_TREE, categoryTree));
+		}
+		if (categories != null) {
+			for (String category: categories) {
+				if (category != null)
+					doc.add(Filter(CATEGORY, category));
+			}
+		}
+	}
+
+	/**
+	 * adds the facet values of the document (categories, category tree, mime type and author) as doc
+	 * values, so the hits of a search can be counted per value in one pass
+	 * 
+	 * @return the document to write
+	 */
+	public static Document setFacets(Document doc, String categoryTree, String[] categories) throws IOException {
+		if (categoryTree != null) {
+			List<String> path = new ArrayList<>();
+			for (String part: categoryTree.split("/")) {
+				if (!part.isEmpty())
+					path.add(part);
+			}
+			if (!path.isEmpty())
+				doc.add(new SortedSetDocValuesFacetField(FACET_CATEGORY_TREE, path.toArray(new String[path.size()])));
+		}
+		if (categories != null) {
+			for (String category: categories) {
+				if (!Util.isEmpty(category))
+					doc.add(new SortedSetDocValuesFacetField(FACET_CATEGORY, category));
+			}
+		}
+		String mimeType = doc.get("mime-type");
+		if (!Util.isEmpty(mimeType))
+			doc.add(new SortedSetDocValuesFacetField(FACET_TYPE, mimeType));
+		String author = doc.get("author");
+		if (!Util.isEmpty(author))
+			doc.add(new SortedSetDocValuesFacetField(FACET_AUTHOR, author));
+		return FACETS_CONFIG.build(doc);
+	}
+
+	/**
+	 * adds the sort values of the document from its stored fields
+	 */
+	public static void setSortFields(Document doc) {
+		for (String name: SORT_TEXT) {
+			doc.removeFields(SORT_PREFIX + name);
+			String value = doc.get("type".equals(name) ? "mime-type" : name);
+			if (Util.isEmpty(value, true))
+				continue;
+			value = value.trim().toLowerCase(Locale.ROOT);
+			if (value.length() > SORT_MAX_LENGTH)
+				value = value.substring(0, SORT_MAX_LENGTH);
+			doc.add(new SortedDocValuesField(SORT_PREFIX + name, new BytesRef(value)));
+		}
+		for (String name: SORT_NUMERIC) {
+			doc.removeFields(SORT_PREFIX + name);
+			String value = doc.get(name);
+			if (Util.isEmpty(value, true))
+				continue;
+			try {
+				long l = "modified".equals(name) ? DateTools.stringToTime(value) : Long.parseLong(value.trim());
+				doc.add(new NumericDocValuesField(SORT_PREFIX + name, l));
+			} catch (Exception e) {
+				// not a number, the document sorts like one without the value
+			}
+		}
+	}
+
+	/**
+	 * adds the sentence ends of the stored contents of the document
+	 */
+	public static void setSentences(Document doc) {
+		doc.removeFields(SENTENCES);
+		String contents = doc.get("contents");
+		if (!Util.isEmpty(contents))
+			doc.add(new StoredField(SENTENCES, TextSplitter.pack(TextSplitter.sentenceEnds(contents))));
+	}
+
 	public static void setRaw(Document doc, String raw) {
 		// doc.add(new Field("raw",raw,Field.Store.YES,Field.Index.NO));
 	}
@@ -44,10 +44,16 @@ public class HTMLFormatterWithScore implements Formatter {
 		if (tokenGroup.getTotalScore() <= 0) {
 			return originalText;
 		}
+		return highlight(originalText, tokenGroup.getTotalScore());
+	}
 
+	/**
+	 * marks up a match with the given score
+	 */
+	public String highlight(String originalText, float score) {
 		if (tagName != null) {
 			StringBuilder returnBuffer = new StringBuilder(originalText.length() + (tagName.length() * 2) + 14);
-			returnBuffer.append("<").append(tagName).append(" score=\"" + tokenGroup.getTotalScore() + "\">");
+			returnBuffer.append("<").append(tagName).append(" score=\"" + score + "\">");
 			returnBuffer.append(originalText);
 			returnBuffer.append("</").append(tagName).append(">");
 			return returnBuffer.toString();
@@ -0,0 +1,99 @@
+package org.lucee.extension.search.lucene.highlight;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+
+/**
+ * marks up the keywords of the criteria of a vector search in the passages of the hits. The keywords
+ * are analyzed once per search, a passage is analyzed in a single pass and its tokens are looked up
+ * without creating a string per token.
+ */
+public final class KeywordMatcher {
+
+	// common words like "the", "and", "of", etc. are not highlighted
+	private static final CharArraySet STOP_WORDS = CharArraySet.unmodifiableSet(new CharArraySet(Arrays.asList("the", "a",
+			"an", "and", "or", "but", "is", "in", "on", "at", "to", "for", "with", "by", "about", "as", "of", "this", "that"),
+			false));
+
+	private final Analyzer analyzer;
+	private final CharArraySet keywords;
+
+	/**
+	 * @param analyzer analyzer of the collection, keywords and passages are analyzed the way the contents
+	 *            were indexed, so stemmed forms match as well
+	 * @param criteria criteria of the search
+	 */
+	public KeywordMatcher(Analyzer analyzer, String criteria) throws IOException {
+		this.analyzer = analyzer;
+		this.keywords = new CharArraySet(8, false);
+		if (criteria == null)
+			return;
+		for (String keyword: criteria.toLowerCase().split("\\s+")) {
+			if (keyword.length() > 2 && !STOP_WORDS.contains(keyword)) {
+				try (TokenStream ts = analyzer.tokenStream(OffsetHighlighter.FIELD, keyword)) {
+					CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+					ts.reset();
+					while (ts.incrementToken()) {
+						keywords.add(term.toString());
+					}
+					ts.end();
+				}
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return keywords.isEmpty();
+	}
+
+	/**
+	 * appends the text with the matching keywords marked up, overlapping tokens (synonyms, n-grams) are
+	 * marked up as one match
+	 *
+	 * @return number of tokens matching a keyword
+	 */
+	public int highlight(String text, StringBuilder result) throws IOException {
+		int count = 0;
+		int last = 0, matchStart = -1, matchEnd = -1;
+		if (!keywords.isEmpty()) {
+			try (TokenStream ts = analyzer.tokenStream(OffsetHighlighter.FIELD, text)) {
+				CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+				OffsetAttribute offset = ts.addAttribute(OffsetAttribute.class);
+				ts.reset();
+				while (ts.incrementToken()) {
+					if (!keywords.contains(term.buffer(), 0, term.length()))
+						continue;
+					count++;
+					if (matchEnd >= 0 && offset.startOffset() <= matchEnd) {
+						matchEnd = Math.max(matchEnd, offset.endOffset());
+						continue;
+					}
+					if (matchEnd >= 0)
+						last = highlight(result, text, last, matchStart, matchEnd);
+					matchStart = offset.startOffset();
+					matchEnd = offset.endOffset();
+				}
+				ts.end();
+			}
+		}
+		if (matchEnd >= 0)
+			last = highlight(result, text, last, matchStart, matchEnd);
+		result.append(text, last, text.length());
+		return count;
+	}
+
+	private static int highlight(StringBuilder result, String text, int last, int start, int end) {
+		result.append(text, last, start);
+		// the match keeps the original case of the text
+		result.append(HTMLFormatterWithScore.DEFAULT_PRE_TAG);
+		result.append(text, start, end);
+		result.append(HTMLFormatterWithScore.DEFAULT_POST_TAG);
+		return end;
+	}
+}
@@ -0,0 +1,91 @@
+package org.lucee.extension.search.lucene.highlight;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.lucee.extension.search.lucene.highlight.TextHandler.ScoredParagraph;
+
+/**
+ * highlights the contents of a single hit with the offsets stored in its term vectors, so the text is
+ * not analyzed again and only the passages around the matches are looked at. The contents are already
+ * loaded with the hit, so they are not read from the index again.
+ */
+public final class OffsetHighlighter extends UnifiedHighlighter {
+
+	public static final String FIELD = "contents";
+
+	private final String contents;
+
+	private OffsetHighlighter(Builder builder, String contents) {
+		super(builder);
+		this.contents = contents;
+	}
+
+	/**
+	 * @return true if the document has term vectors for the contents, documents of URL indexes do not
+	 */
+	public static boolean hasOffsets(IndexReader reader, int doc) {
+		List<LeafReaderContext> leaves = reader.leaves();
+		LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+		FieldInfo fi = leaf.reader().getFieldInfos().fieldInfo(FIELD);
+		return fi != null && fi.hasVectors();
+	}
+
+	/**
+	 * returns the best passages of the contents in the order they appear in the text, the leading
+	 * passages without highlights when nothing matches
+	 * 
+	 * @param searcher searcher the hit was found with
+	 * @param analyzer analyzer of the collection, the offsets are read from the term vectors
+	 * @param doc doc number of the hit
+	 * @param query query to highlight, terms of any field are highlighted in the contents
+	 * @param formatter formatter of the matches
+	 * @param contents stored contents of the hit
+	 * @param sentences positions of the sentence ends of the contents stored at index time, null to find
+	 *            them
+	 * @param max max number of passages
+	 * @param size length the passages are cut to
+	 */
+	public static List<ScoredParagraph> findBestTexts(IndexSearcher searcher, Analyzer analyzer, int doc, Query query,
+			HTMLFormatterWithScore formatter, String contents, int[] sentences, int max, int size)
+			throws IOException {
+		// documents indexed before the sentence ends were stored break at the same ends
+		int[] ends = sentences == null ? TextSplitter.sentenceEnds(contents) : sentences;
+		Builder builder = builder(searcher, analyzer)
+				.withFormatter(new ScoredPassageFormatter(formatter, new QueryTerms(query)))
+				.withFieldMatcher(field -> true).withHandleMultiTermQuery(true).withHighlightPhrasesStrictly(true)
+				.withMaxLength(Math.max(1, contents.length())).withMaxNoHighlightPassages(max)
+				.withBreakIterator(
+						() -> LengthGoalBreakIterator.createClosestToLength(new SentenceBreakIterator(ends), size, 0.5f));
+		Map<String, Object[]> result = new OffsetHighlighter(builder, contents)
+				.highlightFieldsAsObjects(new String[] { FIELD }, query, new int[] { doc }, new int[] { max });
+		Object[] values = result.get(FIELD);
+		@SuppressWarnings("unchecked")
+		List<ScoredParagraph> list = values == null || values[0] == null ? Collections.emptyList()
+				: (List<ScoredParagraph>) values[0];
+		return list;
+	}
+
+	@Override
+	protected OffsetSource getOffsetSource(String field) {
+		return OffsetSource.TERM_VECTORS;
+	}
+
+	@Override
+	protected List<CharSequence[]> loadFieldValues(String[] fields, DocIdSetIterator docIter,
+			int cacheCharsThreshold) throws IOException {
+		return Collections.singletonList(new CharSequence[] { contents });
+	}
+}
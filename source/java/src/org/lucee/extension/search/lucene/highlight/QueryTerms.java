@@ -0,0 +1,177 @@
+package org.lucee.extension.search.lucene.highlight;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+
+/**
+ * terms (and the automata of prefix or wildcard queries) the QueryScorer highlights, each with the
+ * highest weight it has in the query. The matches of both highlighters are weighted with them, so a
+ * context scores the same with or without term vectors.
+ */
+final class QueryTerms {
+	private final Map<String, Integer> terms = new HashMap<>();
+	private final List<Float> termWeights = new ArrayList<>();
+	private final List<ByteRunAutomaton> automata = new ArrayList<>();
+	private final List<Float> automatonWeights = new ArrayList<>();
+	// weights of the prefix or wildcard queries by their string, the match term of the UnifiedHighlighter
+	private final Map<String, Float> multiTermWeights = new HashMap<>();
+	// weights of the terms, followed by the ones of the automata
+	private final float[] weights;
+	// rank of a paragraph that contains all of them
+	private final float maxRank;
+
+	QueryTerms(Query query) {
+		collect(query, 1f);
+		weights = new float[termWeights.size() + automatonWeights.size()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = i < termWeights.size() ? termWeights.get(i) : automatonWeights.get(i - termWeights.size());
+		}
+		boolean[] all = new boolean[weights.length];
+		Arrays.fill(all, true);
+		maxRank = rank(all);
+	}
+
+	private void collect(Query query, float boost) {
+		if (query instanceof BoostQuery) {
+			collect(((BoostQuery) query).getQuery(), boost * ((BoostQuery) query).getBoost());
+			return;
+		}
+		if (query instanceof BooleanQuery) {
+			for (BooleanClause clause: (BooleanQuery) query) {
+				if (!clause.isProhibited())
+					collect(clause.getQuery(), boost);
+			}
+			return;
+		}
+		query.visit(new QueryVisitor() {
+			@Override
+			public void consumeTerms(Query q, Term... ts) {
+				for (Term t: ts) {
+					Integer index = terms.get(t.text());
+					if (index == null) {
+						terms.put(t.text(), termWeights.size());
+						termWeights.add(boost);
+					}
+					else if (termWeights.get(index) < boost)
+						termWeights.set(index, boost);
+				}
+			}
+
+			@Override
+			public void consumeTermsMatching(Query q, String field, Supplier<ByteRunAutomaton> automaton) {
+				automata.add(automaton.get());
+				automatonWeights.add(boost);
+				multiTermWeights.merge(q.toString(), boost, Math::max);
+			}
+
+			@Override
+			public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+				return occur == BooleanClause.Occur.MUST_NOT ? QueryVisitor.EMPTY_VISITOR : this;
+			}
+		});
+	}
+
+	boolean isEmpty() {
+		return weights.length == 0;
+	}
+
+	/**
+	 * @return sum of the weights of the terms the text contains, the analysis stops once it contains
+	 *         all of them
+	 */
+	float rank(Analyzer analyzer, String text) throws IOException {
+		boolean[] found = new boolean[weights.length];
+		int missing = found.length;
+		try (TokenStream ts = analyzer.tokenStream("content", text)) {
+			CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+			ts.reset();
+			while (missing > 0 && ts.incrementToken()) {
+				missing -= match(term, found);
+			}
+			ts.end();
+		}
+		return rank(found);
+	}
+
+	/**
+	 * @return rank of a text that contains all terms
+	 */
+	float getMaxRank() {
+		return maxRank;
+	}
+
+	/**
+	 * weight the QueryScorer gives a match of the UnifiedHighlighter, a phrase matches as a whole and
+	 * counts every term of it
+	 *
+	 * @param matchTerm term of a passage match: a term, the terms of a phrase or a prefix or wildcard
+	 *            query
+	 * @return weight, the one of an unboosted term if the match term is not known
+	 */
+	float weight(String matchTerm) {
+		Integer index = terms.get(matchTerm);
+		if (index != null)
+			return weights[index];
+		Float weight = multiTermWeights.get(matchTerm);
+		if (weight != null)
+			return weight;
+		float sum = 0f;
+		for (String term: matchTerm.split(" ")) {
+			index = terms.get(term);
+			if (index == null)
+				return 1f;
+			sum += weights[index];
+		}
+		return sum;
+	}
+
+	// always summed in the same order, so a paragraph with all terms ranks exactly maxRank
+	private float rank(boolean[] found) {
+		float rank = 0f;
+		for (int i = 0; i < found.length; i++) {
+			if (found[i])
+				rank += weights[i];
+		}
+		return rank;
+	}
+
+	/**
+	 * @return number of terms the token matches that were not found before
+	 */
+	private int match(CharTermAttribute term, boolean[] found) {
+		int matched = 0;
+		Integer index = terms.get(term.toString());
+		if (index != null && !found[index]) {
+			found[index] = true;
+			matched++;
+		}
+		if (!automata.isEmpty()) {
+			BytesRef br = new BytesRef(term);
+			for (int i = 0; i < automata.size(); i++) {
+				int a = terms.size() + i;
+				if (!found[a] && automata.get(i).run(br.bytes, br.offset, br.length)) {
+					found[a] = true;
+					matched++;
+				}
+			}
+		}
+		return matched;
+	}
+}
@@ -0,0 +1,61 @@
+package org.lucee.extension.search.lucene.highlight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.uhighlight.Passage;
+import org.apache.lucene.search.uhighlight.PassageFormatter;
+import org.apache.lucene.util.BytesRef;
+import org.lucee.extension.search.lucene.highlight.TextHandler.ScoredParagraph;
+
+/**
+ * turns the passages of the UnifiedHighlighter into the paragraphs of the context, the matches are
+ * marked up with the HTMLFormatterWithScore like the ones of the Highlighter. Every match gets the
+ * weight its terms have with the QueryScorer, a passage scores the sum of its matches.
+ */
+public final class ScoredPassageFormatter extends PassageFormatter {
+
+	private final HTMLFormatterWithScore formatter;
+	private final QueryTerms terms;
+
+	ScoredPassageFormatter(HTMLFormatterWithScore formatter, QueryTerms terms) {
+		this.formatter = formatter;
+		this.terms = terms;
+	}
+
+	@Override
+	public Object format(Passage[] passages, String content) {
+		List<ScoredParagraph> list = new ArrayList<>(passages.length);
+		for (int i = 0; i < passages.length; i++) {
+			Passage passage = passages[i];
+			int start = passage.getStartOffset();
+			int end = passage.getEndOffset();
+			StringBuilder sb = new StringBuilder(end - start + 32);
+			int pos = start;
+			int[] matchStarts = passage.getMatchStarts();
+			int[] matchEnds = passage.getMatchEnds();
+			BytesRef[] matchTerms = passage.getMatchTerms();
+			float score = 0f;
+			for (int j = 0; j < passage.getNumMatches(); j++) {
+				int ms = Math.max(matchStarts[j], pos);
+				int me = Math.min(matchEnds[j], end);
+				float weight = terms.weight(matchTerms[j].utf8ToString());
+				// overlapping matches (a phrase and its terms) are only marked up and counted once
+				while (j + 1 < passage.getNumMatches() && matchStarts[j + 1] < me) {
+					me = Math.max(me, Math.min(matchEnds[++j], end));
+					weight = Math.max(weight, terms.weight(matchTerms[j].utf8ToString()));
+				}
+				if (ms >= me)
+					continue;
+				sb.append(content, pos, ms);
+				sb.append(formatter.highlight(content.substring(ms, me), weight));
+				score += weight;
+				pos = me;
+			}
+			sb.append(content, pos, end);
+			list.add(new ScoredParagraph(new Text(content.substring(start, end), start, end), sb.toString(),
+					score, i));
+		}
+		return list;
+	}
+}
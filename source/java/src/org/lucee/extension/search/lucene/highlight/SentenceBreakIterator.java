@@ -0,0 +1,123 @@
+package org.lucee.extension.search.lucene.highlight;
+
+import java.text.BreakIterator;
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+import java.util.Arrays;
+
+/**
+ * breaks a text after the sentence terminators stored with the document at index time (see
+ * TextSplitter.sentenceEnds(String)), so the sentences do not need to be found again for every hit
+ */
+public final class SentenceBreakIterator extends BreakIterator {
+
+	private final int[] sentenceEnds;
+	private CharacterIterator text = new StringCharacterIterator("");
+	// boundaries of the text, the start, after every terminator and the whitespace following it and the end
+	private int[] boundaries = new int[] { 0 };
+	private int current;
+
+	/**
+	 * @param sentenceEnds positions of the sentence terminators of the text
+	 */
+	public SentenceBreakIterator(int[] sentenceEnds) {
+		this.sentenceEnds = sentenceEnds;
+	}
+
+	@Override
+	public void setText(CharacterIterator text) {
+		this.text = text;
+		int begin = text.getBeginIndex(), end = text.getEndIndex();
+		int[] b = new int[sentenceEnds.length + 2];
+		int size = 0;
+		b[size++] = begin;
+		for (int e: sentenceEnds) {
+			int boundary = begin + e + 1;
+			// like the sentence instance of the jdk, a sentence keeps the whitespace that follows it
+			while (boundary < end && Character.isWhitespace(text.setIndex(boundary)))
+				boundary++;
+			if (boundary > b[size - 1] && boundary < end)
+				b[size++] = boundary;
+		}
+		if (end > b[size - 1])
+			b[size++] = end;
+		boundaries = Arrays.copyOf(b, size);
+		current = 0;
+	}
+
+	@Override
+	public CharacterIterator getText() {
+		return text;
+	}
+
+	@Override
+	public int first() {
+		current = 0;
+		return boundaries[current];
+	}
+
+	@Override
+	public int last() {
+		current = boundaries.length - 1;
+		return boundaries[current];
+	}
+
+	@Override
+	public int current() {
+		return boundaries[current];
+	}
+
+	@Override
+	public int next() {
+		if (current == boundaries.length - 1)
+			return DONE;
+		return boundaries[++current];
+	}
+
+	@Override
+	public int next(int n) {
+		int index = current + n;
+		if (index < 0 || index >= boundaries.length) {
+			current = index < 0 ? 0 : boundaries.length - 1;
+			return DONE;
+		}
+		current = index;
+		return boundaries[current];
+	}
+
+	@Override
+	public int previous() {
+		if (current == 0)
+			return DONE;
+		return boundaries[--current];
+	}
+
+	@Override
+	public int following(int offset) {
+		int index = Arrays.binarySearch(boundaries, offset);
+		index = index < 0 ? -index - 1 : index + 1;
+		if (index >= boundaries.length) {
+			current = boundaries.length - 1;
+			return DONE;
+		}
+		current = index;
+		return boundaries[current];
+	}
+
+	@Override
+	public int preceding(int offset) {
+		int index = Arrays.binarySearch(boundaries, offset);
+		index = index < 0 ? -index - 2 : index - 1;
+		if (index < 0) {
+			current = 0;
+			return DONE;
+		}
+		current = index;
+		return boundaries[current];
+	}
+
+	@Override
+	public boolean isBoundary(int offset) {
+		return Arrays.binarySearch(boundaries, offset) >= 0;
+	}
+}
@@ -5,9 +5,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
 
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.highlight.Formatter;
 import org.apache.lucene.search.highlight.Highlighter;
@@ -17,44 +16,86 @@ import org.apache.lucene.search.highlight.QueryScorer;
 
 public class TextHandler {
 
-	public static List<ScoredParagraph> findBestTexts(Query query, Formatter formatter, String text, int max, int size)
-			throws IOException, InvalidTokenOffsetsException {
-		StandardAnalyzer analyzer = new StandardAnalyzer();
-		TextFormatter paragraphFormatter = new TextFormatter(formatter);
-		// Create highlighter
-		QueryScorer scorer = new QueryScorer(query);
-
-		Highlighter highlighter = new Highlighter(paragraphFormatter, scorer);
-
-		// Important: Set fragmenter with size larger than any paragraph
-		highlighter.setTextFragmenter(new NullFragmenter());
+	public static List<ScoredParagraph> findBestTexts(Analyzer analyzer, Query query, Formatter formatter, String text,
+			int max, int size) throws IOException, InvalidTokenOffsetsException {
+		return findBestTexts(analyzer, query, formatter, text, null, max, size, Integer.MAX_VALUE);
+	}
 
+	/**
+	 * returns the best paragraphs of the text in the order they appear. Paragraphs are ranked by the
+	 * query terms they contain (each term once, by its weight), among paragraphs with the same rank the
+	 * earlier ones are preferred. The paragraphs are analyzed in order and the scan stops once max
+	 * paragraphs (or paragraphs with bytes characters) contain every query term, as no later paragraph
+	 * can rank higher; the analysis of a paragraph stops at the last missing term. Only the selected
+	 * paragraphs are highlighted, paragraphs without hits fill up the rest.
+	 *
+	 * @param analyzer analyzer of the collection, the text is analyzed the way it was indexed
+	 * @param sentences positions of the sentence ends of the text stored at index time, null to find them
+	 * @param max max number of paragraphs
+	 * @param size length the paragraphs are cut to
+	 * @param bytes number of characters of the context, no more paragraphs are needed once they are
+	 *            filled
+	 */
+	public static List<ScoredParagraph> findBestTexts(Analyzer analyzer, Query query, Formatter formatter, String text,
+			int[] sentences, int max, int size, int bytes) throws IOException, InvalidTokenOffsetsException {
+		List<ScoredParagraph> list = new ArrayList<>();
+		if (max <= 0)
+			return list;
 		// Split text into paragraphs
 		TextSplitter splitter = new TextSplitter(size);
-		List<Text> texts = splitter.split(text);
+		List<Text> texts = splitter.split(text, sentences);
+
+		// rank of the paragraphs scanned so far, 0 for paragraphs without a query term
+		QueryTerms terms = new QueryTerms(query);
+		float[] ranks = new float[texts.size()];
+		int scanned = 0;
+		List<Integer> candidates = new ArrayList<>();
+		if (!terms.isEmpty()) {
+			int complete = 0, completeLength = 0;
+			while (scanned < texts.size() && complete < max && completeLength < bytes) {
+				Text original = texts.get(scanned);
+				ranks[scanned] = terms.rank(analyzer, original.text);
+				if (ranks[scanned] > 0)
+					candidates.add(scanned);
+				if (ranks[scanned] >= terms.getMaxRank()) {
+					complete++;
+					completeLength += original.length();
+				}
+				scanned++;
+			}
+			// stable, the earlier paragraphs first among the same rank
+			candidates.sort(Comparator.comparingDouble((Integer i) -> ranks[i]).reversed());
+		}
 
-		// Create a priority queue to store the best matching paragraphs
-		PriorityQueue<ScoredParagraph> bestParagraphs = new PriorityQueue<>();
-		// Score each paragraph
+		int length = 0;
+		if (!candidates.isEmpty()) {
+			TextFormatter paragraphFormatter = new TextFormatter(formatter);
+			// Create highlighter
+			Highlighter highlighter = new Highlighter(paragraphFormatter, new QueryScorer(query));
+			// Important: Set fragmenter with size larger than any paragraph
+			highlighter.setTextFragmenter(new NullFragmenter());
 
-		for (int i = 0; i < texts.size(); i++) {
-			paragraphFormatter.reset();
-			// Get highlighted text and score for this paragraph
-			Text original = texts.get(i);
-			String highlighted = highlighter.getBestFragment(analyzer, "content", original.text);
-			if (highlighted == null)
-				highlighted = original.text;
-			if (highlighted != null) { // if there was a match
-				bestParagraphs.add(new ScoredParagraph(original, highlighted, paragraphFormatter.getScore(), i));
+			for (int i: candidates) {
+				if (list.size() >= max || length >= bytes)
+					break;
+				paragraphFormatter.reset();
+				Text original = texts.get(i);
+				String highlighted = highlighter.getBestFragment(analyzer, "content", original.text);
+				if (highlighted == null)
+					highlighted = original.text;
+				ScoredParagraph sp = new ScoredParagraph(original, highlighted, paragraphFormatter.getScore(), i);
+				list.add(sp);
+				length += sp.highlighted.length();
 			}
 		}
 
-		// Print the best matching paragraphs
-		List<ScoredParagraph> list = new ArrayList<>();
-		for (int i = 0; i < max && !bestParagraphs.isEmpty(); i++) {
-			ScoredParagraph sp = bestParagraphs.poll();
-			// if (sp.score == 0)break;
-			list.add(sp);
+		// paragraphs without hits, in the order they appear
+		for (int i = 0; i < texts.size() && list.size() < max && length < bytes; i++) {
+			if (i < scanned && ranks[i] > 0)
+				continue;
+			Text original = texts.get(i);
+			list.add(new ScoredParagraph(original, original.text, 0f, i));
+			length += original.length();
 		}
 
 		// sort list
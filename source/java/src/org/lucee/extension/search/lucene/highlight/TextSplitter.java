@@ -1,10 +1,17 @@
 package org.lucee.extension.search.lucene.highlight;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.BytesRef;
+
 public class TextSplitter {
 	private static final Pattern SENTENCE_PATTERN = Pattern.compile("[.!?]");
 
@@ -18,6 +25,14 @@ public class TextSplitter {
 	}
 
 	public List<Text> split(String text) {
+		return split(text, null);
+	}
+
+	/**
+	 * @param sentenceEnds positions of the sentence terminators of the text as returned by
+	 *            sentenceEnds(String), stored with the document at index time; null to find them
+	 */
+	public List<Text> split(String text, int[] sentenceEnds) {
 		int tol = (int) (maxSize * 0.2D);
 		int maxLength = maxSize + tol;
 		int minLength = maxSize - tol;
@@ -25,16 +40,15 @@ public class TextSplitter {
 		if (text == null || text.isEmpty()) {
 			return new ArrayList<>();
 		}
+		if (sentenceEnds == null)
+			sentenceEnds = sentenceEnds(text);
 
 		List<Text> positions = new ArrayList<>();
 
-		Matcher matcher = SENTENCE_PATTERN.matcher(text);
-
 		int startPosition = 0;
 		Text last = null, sen;
-		while (matcher.find()) {
+		for (int endPosition: sentenceEnds) {
 			// The end position is where the terminator starts
-			int endPosition = matcher.start();
 			sen = new Text(text.substring(startPosition, endPosition + 1), startPosition, endPosition + 1);
 			// no last, just set it
 			if (last == null) {
@@ -55,8 +69,8 @@ public class TextSplitter {
 				last = Text.merge(last, sen);
 			}
 
-			// Start of next sentence is after the newline
-			startPosition = matcher.end();
+			// Start of next sentence is after the terminator
+			startPosition = endPosition + 1;
 		}
 
 		// Add the last part if there's remaining text
@@ -83,6 +97,61 @@ public class TextSplitter {
 		return positions;
 	}
 
+	/**
+	 * @return positions of the sentence terminators of the text
+	 */
+	public static int[] sentenceEnds(String text) {
+		int[] ends = new int[16];
+		int size = 0;
+		Matcher matcher = SENTENCE_PATTERN.matcher(text);
+		while (matcher.find()) {
+			if (size == ends.length)
+				ends = Arrays.copyOf(ends, size * 2);
+			ends[size++] = matcher.start();
+		}
+		return Arrays.copyOf(ends, size);
+	}
+
+	/**
+	 * packs the sentence ends to store them with the document, as the number of them followed by the
+	 * length of every sentence
+	 */
+	public static BytesRef pack(int[] sentenceEnds) {
+		try {
+			ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+			out.writeVInt(sentenceEnds.length);
+			int start = 0;
+			for (int end: sentenceEnds) {
+				out.writeVInt(end - start);
+				start = end + 1;
+			}
+			return new BytesRef(out.toArrayCopy());
+		} catch (IOException e) {
+			// writes to memory only
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param text the sentence ends belong to
+	 * @return the sentence ends packed with pack(int[]), null if there are none or they do not belong to
+	 *         the text
+	 */
+	public static int[] unpack(BytesRef packed, String text) {
+		if (packed == null || text == null)
+			return null;
+		ByteArrayDataInput in = new ByteArrayDataInput(packed.bytes, packed.offset, packed.length);
+		int[] ends = new int[in.readVInt()];
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			ends[i] = start + in.readVInt();
+			if (ends[i] >= text.length())
+				return null;
+			start = ends[i] + 1;
+		}
+		return ends;
+	}
+
 	public int sentenceTerminatorIndex(String text, int fromIndex) {
 		// Regex pattern: [.!?] matches any sentence terminator
 		// \s* matches zero or more whitespace characters (spaces, tabs)
@@ -8,7 +8,6 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexWriter;
 import org.lucee.extension.search.lucene.DocumentUtil;
 
 import lucee.commons.io.log.Log;
@@ -35,18 +34,29 @@ public final class WebCrawler {
 		EXTENSIONS = list.toArray(new String[list.size()]);
 	}
 
+	/**
+	 * receives the documents of the pages crawled, called from the threads crawling the children of a
+	 * page as well
+	 */
+	public interface DocumentHandler {
+		void add(Document doc) throws IOException;
+	}
+
 	private Log log;
 
 	public WebCrawler(Log log) {
 		this.log = log;
 	}
 
-	public void parse(IndexWriter writer, URL current, String[] extensions, boolean recurse, long timeout)
+	/**
+	 * crawls the given url and passes the document of every page to the handler
+	 */
+	public void parse(DocumentHandler handler, URL current, String[] extensions, boolean recurse, long timeout)
 			throws IOException, PageException {
 		translateExtension(extensions);
 		if (extensions == null || extensions.length == 0)
 			extensions = EXTENSIONS;
-		_parse(log, writer, null, current, new ArrayList<URL>(), extensions, recurse, 0, timeout);
+		_parse(log, handler, null, current, new ArrayList<URL>(), extensions, recurse, 0, timeout);
 	}
 
 	private static URL translateURL(URL url) throws MalformedURLException {
@@ -77,14 +87,13 @@ public final class WebCrawler {
 	}
 
 	/**
-	 * @param writer
 	 * @param current
 	 * @param content
 	 * @throws IOException
 	 * @throws PageException
 	 */
 
-	private static Document toDocument(StringBuffer content, IndexWriter writer, String root, URL current, long timeout)
+	private static Document toDocument(StringBuffer content, String root, URL current, long timeout)
 			throws IOException, PageException {
 		HTTPResponse rsp = CFMLEngineFactory.getInstance().getHTTPUtil().get(current, null, null, (int) timeout, null,
 				"RailoBot", null, -1, null, null, null);
@@ -95,15 +104,15 @@ public final class WebCrawler {
 		return doc;
 	}
 
-	protected static void _parse(Log log, IndexWriter writer, String root, URL current, List<URL> urlsDone,
+	protected static void _parse(Log log, DocumentHandler handler, String root, URL current, List<URL> urlsDone,
 			String[] extensions, boolean recurse, int deep, long timeout) throws IOException, PageException {
 
-		StringBuffer content = _parseItem(log, writer, root, current, urlsDone, extensions, recurse, deep, timeout);
+		StringBuffer content = _parseItem(log, handler, root, current, urlsDone, extensions, recurse, deep, timeout);
 		if (content != null)
-			_parseChildren(log, content, writer, root, current, urlsDone, extensions, recurse, deep, timeout);
+			_parseChildren(log, content, handler, root, current, urlsDone, extensions, recurse, deep, timeout);
 	}
 
-	public static StringBuffer _parseItem(Log log, IndexWriter writer, String root, URL url, List<URL> urlsDone,
+	public static StringBuffer _parseItem(Log log, DocumentHandler handler, String root, URL url, List<URL> urlsDone,
 			String[] extensions, boolean recurse, int deep, long timeout) throws IOException, PageException {
 		try {
 			url = translateURL(url);
@@ -112,12 +121,12 @@ public final class WebCrawler {
 			urlsDone.add(url);
 
 			StringBuffer content = new StringBuffer();
-			Document doc = toDocument(content, writer, root, url, timeout);
+			Document doc = toDocument(content, root, url, timeout);
 
 			if (doc == null)
 				return null;
-			if (writer != null)
-				writer.addDocument(doc);
+			if (handler != null)
+				handler.add(doc);
 
 			// Test
 			/*
@@ -138,7 +147,7 @@ public final class WebCrawler {
 		}
 	}
 
-	protected static void _parseChildren(Log log, StringBuffer content, IndexWriter writer, String root, URL base,
+	protected static void _parseChildren(Log log, StringBuffer content, DocumentHandler handler, String root, URL base,
 			List<URL> urlsDone, String[] extensions, boolean recurse, int deep, long timeout) throws IOException {
 
 		if (recurse) {
@@ -161,7 +170,7 @@ public final class WebCrawler {
 				if ((protocol.equals("http") || protocol.equals("https")) && validExtension(extensions, file)
 						&& base.getHost().equalsIgnoreCase(url.getHost())) {
 					try {
-						ci = new ChildrenIndexer(log, writer, root, url, urlsDone, extensions, recurse, deep + 1,
+						ci = new ChildrenIndexer(log, handler, root, url, urlsDone, extensions, recurse, deep + 1,
 								timeout);
 
 						childIndexer.add(ci);
@@ -203,7 +212,7 @@ public final class WebCrawler {
 					// print.out("exec-child:"+ci.url);
 					// print.out(content);
 					if (ci.content != null)
-						_parseChildren(log, ci.content, writer, root, ci.url, urlsDone, extensions, recurse, deep,
+						_parseChildren(log, ci.content, handler, root, ci.url, urlsDone, extensions, recurse, deep,
 								timeout);
 				}
 
@@ -283,7 +292,7 @@ public final class WebCrawler {
 }
 
 class ChildrenIndexer extends Thread {
-	protected IndexWriter writer;
+	protected WebCrawler.DocumentHandler handler;
 	protected String root;
 	protected URL url;
 	protected List urlsDone;
@@ -294,9 +303,9 @@ class ChildrenIndexer extends Thread {
 	private long timeout;
 	private Log log;
 
-	public ChildrenIndexer(Log log, IndexWriter writer, String root, URL url, List urlsDone, String[] extensions,
-			boolean recurse, int deep, long timeout) {
-		this.writer = writer;
+	public ChildrenIndexer(Log log, WebCrawler.DocumentHandler handler, String root, URL url, List urlsDone,
+			String[] extensions, boolean recurse, int deep, long timeout) {
+		this.handler = handler;
 		this.root = root;
 		this.url = url;
 		this.urlsDone = urlsDone;
@@ -312,7 +321,7 @@ class ChildrenIndexer extends Thread {
 		try {
 			// WebCrawler._parse(writer, root, url, urlsDone, extensions, recurse, deep);
 
-			this.content = WebCrawler._parseItem(log, writer, root, url, urlsDone, extensions, recurse, deep,
+			this.content = WebCrawler._parseItem(log, handler, root, url, urlsDone, extensions, recurse, deep,
 					timeout + 1);
 
 		} catch (Exception e) {
@@ -2,8 +2,8 @@ package org.lucee.extension.search.lucene.query;
 
 
 public final class And implements Op {
-	private Object left;
-	private Object right;
+	Object left;
+	Object right;
 
 	public And(Object left, Object right) {
 		this.left=left;
@@ -4,8 +4,8 @@ import lucee.loader.engine.CFMLEngineFactory;
 
 public final class Concator implements Op {
 	
-	private Op left;
-	private Op right;
+	Op left;
+	Op right;
 
 	public Concator(Op left,Op right) {
 		this.left=left;
@@ -2,8 +2,8 @@ package org.lucee.extension.search.lucene.query;
 
 
 public final class Or implements Op {
-	private Object left;
-	private Object right;
+	Object left;
+	Object right;
 
 	public Or(Object left, Object right) {
 		this.left=left;
@@ -0,0 +1,125 @@
+package org.lucee.extension.search.lucene.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.search.Query;
+
+/**
+ * bounded LRU cache of parsed search criteria, the cached queries are immutable and shared between
+ * searches
+ */
+public final class QueryCache {
+
+	/**
+	 * criteria parsed into a query
+	 */
+	public static final class Entry {
+		private final Query query;
+		private final String criteria;
+		private final String[] terms;
+		private final boolean fullText;
+
+		/**
+		 * @param query query for the criteria
+		 * @param criteria criteria in normalized form
+		 * @param terms terms searched, used for spellcheck
+		 * @param fullText false for criteria matching all documents
+		 */
+		public Entry(Query query, String criteria, String[] terms, boolean fullText) {
+			this.query = query;
+			this.criteria = criteria;
+			this.terms = terms;
+			this.fullText = fullText;
+		}
+
+		public Query getQuery() {
+			return query;
+		}
+
+		public String getCriteria() {
+			return criteria;
+		}
+
+		public String[] getTerms() {
+			return terms.clone();
+		}
+
+		public boolean isFullText() {
+			return fullText;
+		}
+	}
+
+	private final int maxSize;
+	private final Map<String, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxSize max number of entries, 0 disables the cache
+	 */
+	public QueryCache(final int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = -1694254326349735441L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, QueryCache.Entry> eldest) {
+				return size() > QueryCache.this.maxSize;
+			}
+		};
+	}
+
+	public static String toKey(String criteria, short type, String language, int mode) {
+		return type + ":" + mode + ":" + language + ":" + criteria;
+	}
+
+	/**
+	 * @param key key created with {@link #toKey}
+	 * @return cached entry or null
+	 */
+	public Entry get(String key) {
+		if (maxSize == 0) {
+			misses.increment();
+			return null;
+		}
+		Entry e;
+		synchronized (entries) {
+			e = entries.get(key);
+		}
+		if (e == null)
+			misses.increment();
+		else
+			hits.increment();
+		return e;
+	}
+
+	public void put(String key, Entry entry) {
+		if (maxSize == 0)
+			return;
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+}
@@ -0,0 +1,213 @@
+package org.lucee.extension.search.lucene.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.QueryBuilder;
+
+/**
+ * compiles the Op tree of a simple (Verity) query directly into a Lucene Query over the given
+ * fields, instead of serializing the tree and parsing it again with the Lucene QueryParser. The
+ * result is what the QueryParser made of the serialized tree: literals become term, prefix or
+ * wildcard queries, quoted literals and two concatenated literals become phrases. The clauses form a
+ * single list in the order of the criteria: AND makes the clauses on both sides required, NOT
+ * prohibits the clause after it, OR and a space add it as optional; "+" and "-" in front of a literal
+ * set its clause. Like with the QueryParser, AND does not bind tighter than OR.
+ */
+public final class QueryCompiler {
+
+	private static final int CONJ_NONE = 0;
+	private static final int CONJ_AND = 1;
+	private static final int CONJ_OR = 2;
+
+	private static final int MOD_NONE = 0;
+	private static final int MOD_NOT = 1;
+	private static final int MOD_REQ = 2;
+
+	private interface FieldQuery {
+		Query create(String field);
+	}
+
+	private final Analyzer analyzer;
+	private final String[] fields;
+	private final QueryBuilder builder;
+
+	/**
+	 * @param analyzer analyzer used for the terms of the literals
+	 * @param fields fields searched, a literal matches if it matches in one of them
+	 */
+	public QueryCompiler(Analyzer analyzer, String... fields) {
+		this.analyzer = analyzer;
+		this.fields = fields;
+		this.builder = new QueryBuilder(analyzer);
+	}
+
+	/**
+	 * @param op parsed query
+	 * @return compiled query, a query matching nothing if no term is left after analysis
+	 */
+	public Query compile(Op op) {
+		List<BooleanClause> clauses = new ArrayList<>();
+		add(clauses, op, CONJ_NONE, MOD_NONE);
+		if (clauses.isEmpty())
+			return new MatchNoDocsQuery();
+		if (clauses.size() == 1 && clauses.get(0).getOccur() == Occur.SHOULD)
+			return clauses.get(0).getQuery();
+		BooleanQuery.Builder bq = new BooleanQuery.Builder();
+		for (BooleanClause c: clauses) {
+			bq.add(c);
+		}
+		return bq.build();
+	}
+
+	/**
+	 * adds the clauses of an op in the order they appear in its string form, the QueryParser read that
+	 * as one flat list of clauses (no precedence), joined by AND, OR or nothing and modified by NOT
+	 *
+	 * @param conj conjunction in front of the first clause of the op
+	 * @param mods modifier of the first clause of the op
+	 */
+	private void add(List<BooleanClause> clauses, Object op, int conj, int mods) {
+		if (op instanceof And) {
+			add(clauses, ((And) op).left, conj, mods);
+			add(clauses, ((And) op).right, CONJ_AND, MOD_NONE);
+		}
+		else if (op instanceof Or) {
+			add(clauses, ((Or) op).left, conj, mods);
+			add(clauses, ((Or) op).right, CONJ_OR, MOD_NONE);
+		}
+		else if (op instanceof Not) {
+			add(clauses, ((Not) op).left, conj, mods);
+			add(clauses, ((Not) op).right, CONJ_NONE, MOD_NOT);
+		}
+		else if (op instanceof Concator) {
+			Concator c = (Concator) op;
+			if (isPhrase(c))
+				addClause(clauses, conj, mods, phrase(((Literal) c.left).literal + " " + ((Literal) c.right).literal));
+			else {
+				add(clauses, c.left, conj, mods);
+				add(clauses, c.right, CONJ_NONE, MOD_NONE);
+			}
+		}
+		else if (op instanceof Literal) {
+			Literal l = (Literal) op;
+			if (mods == MOD_NONE)
+				mods = "+".equals(l.modifier) ? MOD_REQ : "-".equals(l.modifier) ? MOD_NOT : MOD_NONE;
+			addClause(clauses, conj, mods, literal(l));
+		}
+	}
+
+	/**
+	 * same as QueryParser.addClause with OR as default operator
+	 */
+	private static void addClause(List<BooleanClause> clauses, int conj, int mods, Query q) {
+		// a clause introduced by AND makes the one before required, unless it is prohibited
+		if (!clauses.isEmpty() && conj == CONJ_AND) {
+			BooleanClause c = clauses.get(clauses.size() - 1);
+			if (!c.isProhibited())
+				clauses.set(clauses.size() - 1, new BooleanClause(c.getQuery(), Occur.MUST));
+		}
+		// all terms removed by the analyzer
+		if (q == null)
+			return;
+		boolean prohibited = mods == MOD_NOT;
+		boolean required = mods == MOD_REQ || (conj == CONJ_AND && !prohibited);
+		clauses.add(new BooleanClause(q, prohibited ? Occur.MUST_NOT : required ? Occur.MUST : Occur.SHOULD));
+	}
+
+	private static Query build(BooleanQuery.Builder bq) {
+		BooleanQuery q = bq.build();
+		return q.clauses().isEmpty() ? null : q;
+	}
+
+	private static boolean isPhrase(Concator c) {
+		return c.left instanceof Literal && c.right instanceof Literal;
+	}
+
+	private Query literal(Literal l) {
+		final String text = l.literal;
+		if (l.quoted)
+			return phrase(text);
+		if (isWildcard(text, text.length()))
+			return wildcard(text);
+		return perField(field -> builder.createBooleanQuery(field, text));
+	}
+
+	private Query phrase(final String text) {
+		return perField(field -> builder.createPhraseQuery(field, text));
+	}
+
+	/**
+	 * "*" and "?" are wildcards, except as first character
+	 */
+	private static boolean isWildcard(String text, int end) {
+		char c;
+		for (int i = 1; i < end; i++) {
+			c = text.charAt(i);
+			if (c == '*' || c == '?')
+				return true;
+		}
+		return false;
+	}
+
+	private Query wildcard(final String text) {
+		final int last = text.length() - 1;
+		// only a trailing *
+		if (text.charAt(last) == '*' && !isWildcard(text, last)) {
+			final String prefix = text.substring(0, last);
+			return perField(field -> new PrefixQuery(new Term(field, analyzer.normalize(field, prefix))));
+		}
+		return perField(field -> new WildcardQuery(new Term(field, normalizeWildcard(field, text))));
+	}
+
+	/**
+	 * normalizes the text between the wildcards like the terms of the index
+	 */
+	private String normalizeWildcard(String field, String text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		int start = 0;
+		char c;
+		for (int i = 1; i <= text.length(); i++) {
+			if (i < text.length()) {
+				c = text.charAt(i);
+				if (c != '*' && c != '?')
+					continue;
+			}
+			if (i > start) {
+				String chunk = analyzer.normalize(field, text.substring(start, i)).utf8ToString();
+				for (int y = 0; y < chunk.length(); y++) {
+					c = chunk.charAt(y);
+					if (c == '*' || c == '?' || c == WildcardQuery.WILDCARD_ESCAPE)
+						sb.append(WildcardQuery.WILDCARD_ESCAPE);
+					sb.append(c);
+				}
+			}
+			if (i < text.length())
+				sb.append(text.charAt(i));
+			start = i + 1;
+		}
+		return sb.toString();
+	}
+
+	private Query perField(FieldQuery fq) {
+		if (fields.length == 1)
+			return fq.create(fields[0]);
+		BooleanQuery.Builder bq = new BooleanQuery.Builder();
+		Query q;
+		for (String field: fields) {
+			q = fq.create(field);
+			if (q != null)
+				bq.add(q, Occur.SHOULD);
+		}
+		return build(bq);
+	}
+}
@@ -72,4 +72,18 @@ public class CommonUtil {
 		}
 		return lock;
 	}
+
+	/**
+	 * reads a system property, if not defined the matching environment variable (upper case, dots
+	 * replaced with underscores)
+	 */
+	public static String getSystemPropOrEnvVar(String name, String defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			value = System.getenv(name.replace('.', '_').toUpperCase());
+			if (value == null || value.trim().isEmpty())
+				return defaultValue;
+		}
+		return value.trim();
+	}
 }